@@ -49,8 +49,10 @@ import java.util.Observer;
 
 import org.yriarte.awtGraphics.AwtGraphics;
 import org.yriarte.awtGraphics.AwtImage;
+import org.yriarte.awtGraphics.AwtRasterImage;
 import org.yriarte.math.Matrix;
 import org.yriarte.mini3D.Buffered3DGraphics;
+import org.yriarte.mini3D.Camera;
 import org.yriarte.mini3D.Matrix3D;
 import org.yriarte.mini3D.Object3D;
 
@@ -71,6 +73,10 @@ public class Mini3DPanel extends Panel
 
 	private Object3D model = null;
 	private Buffered3DGraphics graphics3D = null;
+	/** point of view of graphics3D, moved by the navigation */
+	private Camera camera = null;
+	/** wraps the Graphics of each paint call */
+	private AwtGraphics viewGraphics = new AwtGraphics(null);
 	
 	private int width, height, dragX, dragY;
 	
@@ -78,8 +84,15 @@ public class Mini3DPanel extends Panel
 	private double zoom=0;
 	private boolean controlsVisible = true;
 	private boolean controlsRepaint = true;
+	private boolean softwareRaster = false;
+	private boolean parallelRaster = false;
+	/** draw mode when the facets box is checked */
+	private int facetMode = Object3D.DRAW_FACETS;
 	
 	private Matrix startPosition, startOrientation;
+	/** navigation matrices reused on every mouse drag */
+	private Matrix3D dragRotationX = new Matrix3D(), dragRotationY = new Matrix3D(), 
+		dragTransform = new Matrix3D();
 	
 	public Mini3DPanel() {
 		super();
@@ -126,7 +139,39 @@ public class Mini3DPanel extends Panel
 		return graphics3D;
 	}
 
+    /**
+     * @param raster draw in an int[] framebuffer instead of using Java2D, 
+     * applies from the next init
+     */
+    public void setSoftwareRaster(boolean raster) {
+    	softwareRaster = raster;
+    }
+
+    /**
+     * @param parallel software raster filling screen tiles on every core, 
+     * applies from the next init
+     */
+    public void setParallelRaster(boolean parallel) {
+    	parallelRaster = parallel;
+    }
+
+    /**
+     * @param mode DRAW_FACETS or DRAW_ZBUFFER, the latter needs the software raster
+     */
+    public void setFacetMode(int mode) {
+    	facetMode = mode;
+    }
+
     public void init(Object3D scene, int focalArg, double zoomFactor, Matrix position, Matrix orientation) {
+    	init(scene, focalArg, zoomFactor, position, orientation, false);
+    }
+
+    /**
+     * @param keepOrientation a null orientation keeps the camera's current one 
+     * instead of the identity, to carry the drag rotation over a resize
+     */
+    private void init(Object3D scene, int focalArg, double zoomFactor, Matrix position, Matrix orientation, 
+    		boolean keepOrientation) {
 		width = this.getSize().width;
 		height = this.getSize().height;
 		
@@ -147,23 +192,35 @@ public class Mini3DPanel extends Panel
 		add(focalLabel); add(focalField);
 		add(zoomLabel); add(zoomField);
 		
-		org.yriarte.graphics.Image img = new AwtImage(this.createImage(width,height));
+		org.yriarte.graphics.Image img;
+		if (softwareRaster)
+			img = new AwtRasterImage(width, height, 
+					getBackground() != null ? getBackground().getRGB() & 0x00FFFFFF : 0x00FFFFFF, 
+					parallelRaster);
+		else
+			img = new AwtImage(this.createImage(width,height));
 		if (graphics3D != null)
 			graphics3D.init(model, img, width, height, focal);
 		else
 			graphics3D = new Buffered3DGraphics(model, img, width, height, focal);
-		graphics3D.setDrawMode(drawFacets.getState() ? Object3D.DRAW_FACETS : Object3D.DRAW_WIREFRAME);
+		graphics3D.setDrawMode(drawFacets.getState() ? facetMode : Object3D.DRAW_WIREFRAME);
 
 		model.reset();
 		
 		// ---- ---- set point of view out of the bounding box on x axis
+		// the camera gets its own copies, navigation updates them in place
+		camera = graphics3D.getCamera();
 		startPosition = position;
 		if (position == null)
 			position = Matrix3D.translation(0, 0, (bounds.getCell()[0][1]-bounds.getCell()[0][0])/zoom);
-		model.setPosition(position);
+		else
+			position = new Matrix3D().set(position);
+		camera.setPosition(position);
 		startOrientation = orientation;
 		if (orientation != null)
-			model.setOrientation(orientation);
+			camera.setOrientation(new Matrix3D().set(orientation));
+		else if (!keepOrientation)
+			camera.setOrientation(new Matrix3D());
 		
 		// ---- ---- update and paint
 		graphics3D.updateModel();
@@ -175,9 +232,9 @@ public class Mini3DPanel extends Panel
     }
     
 	public void paint(Graphics g) {
-		org.yriarte.graphics.Graphics graph = new AwtGraphics(g);
+		viewGraphics.setAwtGraphics(g);
 		if (graphics3D!=null)
-			graphics3D.updateView(graph);		
+			graphics3D.updateView(viewGraphics);		
 	}
 
 	public void update(Graphics g) {
@@ -203,23 +260,24 @@ public class Mini3DPanel extends Panel
 		case NAV_ROTATION: 
 			deltaX = (arg1 - dragX) * 2 * Math.PI / width;
 			deltaY = (dragY - arg2) * 2 * Math.PI / height;
-			model.setOrientation(model.getOrientation().mul(
-							Matrix3D.rotationY(deltaX).mul(
-									Matrix3D.rotationX(deltaY))));
+			Matrix3D.mulInto(dragRotationY.toRotationY(deltaX),
+					dragRotationX.toRotationX(deltaY), dragTransform);
+			camera.setOrientation(Matrix3D.mulInto(camera.getOrientation(),
+					dragTransform, camera.getOrientation()));
 			break;
 		case NAV_TRANSLATION:
 			deltaX = zoom * (arg1 - dragX);
 			deltaY = zoom * (dragY - arg2);
-			model.setPosition(model.getPosition().mul(
-					Matrix3D.translation(deltaX, deltaY, 0)));
+			camera.setPosition(Matrix3D.mulInto(camera.getPosition(),
+					dragTransform.toTranslation(deltaX, deltaY, 0), camera.getPosition()));
 			break;
 		case NAV_FOCAL:
 			graphics3D.setFocal(graphics3D.getFocal() + 100 * (arg2 - dragY) / height);
 			break;
 		case NAV_ZOOM:
 			deltaZ = zoom * (arg2 - dragY);
-			model.setPosition(model.getPosition().mul(
-					Matrix3D.translation(0, 0, deltaZ)));
+			camera.setPosition(Matrix3D.mulInto(camera.getPosition(),
+					dragTransform.toTranslation(0, 0, deltaZ), camera.getPosition()));
 			break;
 		}
 		graphics3D.updateModel();
@@ -237,7 +295,7 @@ public class Mini3DPanel extends Panel
 	public void itemStateChanged(ItemEvent arg0) {
 		Object src = arg0.getSource();
 		if (src == drawFacets) {
-			graphics3D.setDrawMode(drawFacets.getState() ? Object3D.DRAW_FACETS : Object3D.DRAW_WIREFRAME);
+			graphics3D.setDrawMode(drawFacets.getState() ? facetMode : Object3D.DRAW_WIREFRAME);
 			graphics3D.updateModel();
 			repaint();
 		}
@@ -272,7 +330,7 @@ public class Mini3DPanel extends Panel
 
 	public void componentResized(ComponentEvent e) {
 		if (model != null)
-			init(model, 0, 0, startPosition, startOrientation);
+			init(model, 0, 0, startPosition, startOrientation, true);
 	}
 
 	public void componentShown(ComponentEvent e) {
@@ -9,11 +9,23 @@ import org.yriarte.graphics.Polygon;
 
 public class AwtGraphics implements Graphics {
 
+	/** java.awt.Color cache, direct mapped on the rgb value */
+	private static final int COLOR_CACHE_SIZE = 256;
+	private static final int RGB_NONE = -1;
+	
 	private java.awt.Graphics awtGraphics;
+	private int cacheRGB[];
+	private java.awt.Color cacheColor[];
+	/** rgb of the color set on awtGraphics */
+	private int currentRGB = RGB_NONE;
+	/** points of one polygon of a batch, awt reads polygons from index 0 */
+	private int polygonX[] = new int[16], polygonY[] = new int[16];
 	
 	public AwtGraphics(java.awt.Graphics awtGraphics) {
 		super();
 		this.awtGraphics = awtGraphics;
+		cacheRGB = new int[COLOR_CACHE_SIZE];
+		cacheColor = new java.awt.Color[COLOR_CACHE_SIZE];
 	}
 
 	/**
@@ -24,14 +36,44 @@ public class AwtGraphics implements Graphics {
 	}
 
 	/**
+	 * @brief wraps another awtGraphics, keeping the color cache
 	 * @param awtGraphics the awtGraphics to set
 	 */
-	protected void setAwtGraphics(java.awt.Graphics awtGraphics) {
+	public void setAwtGraphics(java.awt.Graphics awtGraphics) {
 		this.awtGraphics = awtGraphics;
+		currentRGB = RGB_NONE;
+	}
+
+	/**
+	 * @brief releases the wrapped awtGraphics
+	 */
+	public void dispose() {
+		if (awtGraphics != null)
+			awtGraphics.dispose();
+		awtGraphics = null;
+		currentRGB = RGB_NONE;
 	}
 
 	public void setColor(Color color) {
-		awtGraphics.setColor(color != null ? new java.awt.Color(color.getRGB()) : java.awt.Color.gray);
+		setRGB(color != null ? color.getRGB() : java.awt.Color.gray.getRGB() & 0x00FFFFFF);
+	}
+
+	/**
+	 * @brief sets the current color, java.awt.Color objects are cached 
+	 * @param rgb 0x00RRGGBB
+	 */
+	protected void setRGB(int rgb) {
+		if (rgb == currentRGB)
+			return;
+		int slot = (rgb * 0x9E3779B1) >>> 24;
+		java.awt.Color awtColor = cacheColor[slot];
+		if (awtColor == null || cacheRGB[slot] != rgb) {
+			awtColor = new java.awt.Color(rgb);
+			cacheColor[slot] = awtColor;
+			cacheRGB[slot] = rgb;
+		}
+		awtGraphics.setColor(awtColor);
+		currentRGB = rgb;
 	}
 
 	public void drawLine(int x1, int y1, int x2, int y2) {
@@ -50,4 +92,25 @@ public class AwtGraphics implements Graphics {
 		awtGraphics.fillPolygon(polygon.getxP(), polygon.getyP(), polygon.getnEdge());
 	}
 
+	public void fillPolygons(int[] xs, int[] ys, int[] offsets, int[] rgb, int count) {
+		int i, n;
+		for (i = 0; i < count; i++) {
+			n = offsets[i + 1] - offsets[i];
+			if (polygonX.length < n) {
+				polygonX = new int[n];
+				polygonY = new int[n];
+			}
+			System.arraycopy(xs, offsets[i], polygonX, 0, n);
+			System.arraycopy(ys, offsets[i], polygonY, 0, n);
+			setRGB(rgb[i]);
+			awtGraphics.fillPolygon(polygonX, polygonY, n);
+		}
+	}
+
+	public void drawLines(int[] coords, int count) {
+		int i;
+		for (i = 0; i < count * 4; i += 4)
+			awtGraphics.drawLine(coords[i], coords[i + 1], coords[i + 2], coords[i + 3]);
+	}
+
 }
@@ -6,6 +6,8 @@ import org.yriarte.graphics.Image;
 public class AwtImage implements Image {
 
 	private java.awt.Image awtImage;
+	/** long-lived graphics drawing on awtImage */
+	private AwtGraphics graphics = null;
 	
 	public AwtImage(java.awt.Image awtImage) {
 		super();
@@ -23,11 +25,26 @@ public class AwtImage implements Image {
 	 * @param awtImage the awtImage to set
 	 */
 	protected void setAwtImage(java.awt.Image awtImage) {
+		if (graphics != null)
+			graphics.dispose();
+		graphics = null;
 		this.awtImage = awtImage;
 	}
 
+	/**
+	 * @return the same graphics until the image is disposed
+	 */
 	public Graphics getGraphics() {
-		return new AwtGraphics(awtImage.getGraphics());
+		if (graphics == null)
+			graphics = new AwtGraphics(awtImage.getGraphics());
+		return graphics;
+	}
+
+	public void dispose() {
+		if (graphics != null)
+			graphics.dispose();
+		graphics = null;
+		awtImage.flush();
 	}
 
 }
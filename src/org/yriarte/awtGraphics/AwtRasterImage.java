@@ -0,0 +1,76 @@
+package org.yriarte.awtGraphics;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+import org.yriarte.graphics.Graphics;
+import org.yriarte.graphics.ParallelRasterGraphics;
+import org.yriarte.graphics.RasterGraphics;
+import org.yriarte.graphics.RasterImage;
+
+/**
+ * @brief BufferedImage with an int[] framebuffer, drawn by a RasterGraphics
+ * instead of Java2D. Can be used headless.
+ */
+public class AwtRasterImage extends AwtImage implements RasterImage {
+
+	private int pixels[];
+	private int width, height;
+	private RasterGraphics graphics = null;
+	private int background;
+	/** drawn by a ParallelRasterGraphics */
+	private boolean parallel;
+
+	/**
+	 * @param width
+	 * @param height
+	 * @param background clearRect color as 0x00RRGGBB
+	 */
+	public AwtRasterImage(int width, int height, int background) {
+		this(width, height, background, false);
+	}
+
+	/**
+	 * @param width
+	 * @param height
+	 * @param background clearRect color as 0x00RRGGBB
+	 * @param parallel fill polygons on every core, by screen tiles
+	 */
+	public AwtRasterImage(int width, int height, int background, boolean parallel) {
+		super(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB));
+		this.width = width;
+		this.height = height;
+		this.background = background;
+		this.parallel = parallel;
+		pixels = ((DataBufferInt) ((BufferedImage) getAwtImage()).getRaster().getDataBuffer()).getData();
+	}
+
+	public int[] getPixels() {
+		return pixels;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * @return the same RasterGraphics until the image is disposed
+	 */
+	public Graphics getGraphics() {
+		if (graphics == null) {
+			graphics = parallel ? new ParallelRasterGraphics(this) : new RasterGraphics(this);
+			graphics.setBackground(background);
+		}
+		return graphics;
+	}
+
+	public void dispose() {
+		graphics = null;
+		super.dispose();
+	}
+
+}
@@ -0,0 +1,50 @@
+/* Copyright (c) 2010, Luc Yriarte
+ * All rights reserved.
+ * 
+ * @file DepthGraphics.java
+ * @author Luc Yriarte
+ * 
+ * License: BSD <http://www.opensource.org/licenses/bsd-license.php>
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted 
+ * provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright notice, this 
+ * list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright notice, this 
+ * list of conditions and the following disclaimer in the documentation and/or other materials 
+ * provided with the distribution.
+ *     * The name of Luc Yriarte may not be used to endorse or promote products derived 
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR 
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND 
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. 
+ * IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY 
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ * 
+ */
+package org.yriarte.graphics;
+
+/**
+ * @brief Graphics with a per pixel depth buffer.
+ * Depth is stored as 1/z, 0 being infinitely far: a pixel is drawn when its
+ * depth is greater than the buffer's.
+ */
+public interface DepthGraphics extends Graphics {
+
+	/**
+	 * @param depth one value per pixel, cleared to 0 by the owner before a frame
+	 */
+	void setDepthBuffer(float[] depth);
+
+	/**
+	 * @brief Fills count planar polygons with a depth test, as fillPolygons. 
+	 * iz holds the 1/z depth of each point, interpolated across the polygon.
+	 */
+	void fillPolygonsDepth(int[] xs, int[] ys, float[] iz, int[] offsets, int[] rgb, int count);
+
+}
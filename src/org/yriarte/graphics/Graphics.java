@@ -43,4 +43,17 @@ public interface Graphics {
 
 	void fillPolygon(Polygon polygon);
 
+	/**
+	 * @brief Fills count polygons in a single call. Polygon i has the points
+	 * [offsets[i], offsets[i + 1][ of xs and ys, and the color rgb[i] as 0x00RRGGBB.
+	 * offsets holds count + 1 indexes.
+	 */
+	void fillPolygons(int[] xs, int[] ys, int[] offsets, int[] rgb, int count);
+
+	/**
+	 * @brief Draws count lines in the current color. Line i goes from 
+	 * (coords[4 * i], coords[4 * i + 1]) to (coords[4 * i + 2], coords[4 * i + 3]).
+	 */
+	void drawLines(int[] coords, int count);
+
 }
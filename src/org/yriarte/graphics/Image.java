@@ -4,4 +4,9 @@ public interface Image {
 
 	Graphics getGraphics();
 
+	/**
+	 * @brief releases the graphics and native resources held by the image
+	 */
+	void dispose();
+
 }
@@ -0,0 +1,97 @@
+/* Copyright (c) 2010, Luc Yriarte
+ * All rights reserved.
+ * 
+ * @file LineClipper.java
+ * @author Luc Yriarte
+ * 
+ * License: BSD <http://www.opensource.org/licenses/bsd-license.php>
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted 
+ * provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright notice, this 
+ * list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright notice, this 
+ * list of conditions and the following disclaimer in the documentation and/or other materials 
+ * provided with the distribution.
+ *     * The name of Luc Yriarte may not be used to endorse or promote products derived 
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR 
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND 
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. 
+ * IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY 
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ * 
+ */
+
+package org.yriarte.graphics;
+
+/**
+ * @brief Liang-Barsky clipping of segments to a rectangle.
+ * 
+ * The ends of the clipped segment are given by their parameters on the 
+ * segment, see getT0() and getT1(): a clipper must not be shared between 
+ * threads.
+ */
+public class LineClipper {
+
+	/** parameters on the segment of the ends of the last clipped line */
+	private double t0, t1;
+
+	/**
+	 * @brief Clips the segment (x1, y1) + t (dx, dy), t in [0, 1], 
+	 * to the rectangle [xMin, xMax] x [yMin, yMax]
+	 * @return false if nothing is left of the segment
+	 */
+	public boolean clip(double x1, double y1, double dx, double dy, 
+			double xMin, double yMin, double xMax, double yMax) {
+		t0 = 0;
+		t1 = 1;
+		return clipT(-dx, x1 - xMin) && clipT(dx, xMax - x1) 
+				&& clipT(-dy, y1 - yMin) && clipT(dy, yMax - y1);
+	}
+
+	/**
+	 * @brief one Liang-Barsky test, narrows [t0, t1]
+	 * @param p projection of the segment on the side normal
+	 * @param q distance of the first end to the side
+	 * @return false if the segment is out of this side
+	 */
+	private boolean clipT(double p, double q) {
+		double t;
+		if (p == 0)
+			return q >= 0;
+		t = q / p;
+		if (p < 0) {
+			if (t > t1)
+				return false;
+			if (t > t0)
+				t0 = t;
+		} else {
+			if (t < t0)
+				return false;
+			if (t < t1)
+				t1 = t;
+		}
+		return true;
+	}
+
+	/**
+	 * @return parameter of the first end of the last clipped segment
+	 */
+	public double getT0() {
+		return t0;
+	}
+
+	/**
+	 * @return parameter of the second end of the last clipped segment
+	 */
+	public double getT1() {
+		return t1;
+	}
+
+}
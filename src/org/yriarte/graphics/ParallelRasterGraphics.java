@@ -0,0 +1,200 @@
+/* Copyright (c) 2010, Luc Yriarte
+ * All rights reserved.
+ * 
+ * @file ParallelRasterGraphics.java
+ * @author Luc Yriarte
+ * 
+ * License: BSD <http://www.opensource.org/licenses/bsd-license.php>
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted 
+ * provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright notice, this 
+ * list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright notice, this 
+ * list of conditions and the following disclaimer in the documentation and/or other materials 
+ * provided with the distribution.
+ *     * The name of Luc Yriarte may not be used to endorse or promote products derived 
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR 
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND 
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. 
+ * IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY 
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ * 
+ */
+package org.yriarte.graphics;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * @brief RasterGraphics filling polygon batches on several cores.
+ * 
+ * The framebuffer is cut in square tiles. Each polygon of a batch is binned
+ * in every tile its bounding box overlaps, keeping the batch order, then 
+ * the tiles are scan converted in parallel on a ForkJoinPool, each one 
+ * clipped to its own rectangle. Tiles never share a pixel, so painter's 
+ * order and the depth test give the same image as the sequential fill.
+ */
+public class ParallelRasterGraphics extends RasterGraphics {
+
+	/** Default tile side, in pixels */
+	public static int TILE_DEFAULT = 64;
+	/** Below this number of polygons a batch is filled sequentially */
+	public static int PARALLEL_MIN = 256;
+
+	protected ForkJoinPool pool;
+	protected int tileSize, nTileX, nTileY;
+	/** one renderer per tile, sharing the framebuffer */
+	private RasterGraphics tile[];
+	/** indexes in the batch of the polygons overlapping each tile */
+	private int bin[][];
+	private int nBin[];
+
+	/**
+	 * @param pixels framebuffer, width * height pixels
+	 * @param width
+	 * @param height
+	 * @param tileSize tile side in pixels, 0 for TILE_DEFAULT
+	 * @param pool null for the common pool
+	 */
+	public ParallelRasterGraphics(int[] pixels, int width, int height, int tileSize, ForkJoinPool pool) {
+		super(pixels, width, height);
+		int i;
+		this.tileSize = tileSize > 0 ? tileSize : TILE_DEFAULT;
+		this.pool = pool != null ? pool : ForkJoinPool.commonPool();
+		nTileX = (width + this.tileSize - 1) / this.tileSize;
+		nTileY = (height + this.tileSize - 1) / this.tileSize;
+		tile = new RasterGraphics[nTileX * nTileY];
+		bin = new int[tile.length][];
+		nBin = new int[tile.length];
+		for (i = 0; i < tile.length; i++) {
+			tile[i] = new RasterGraphics(pixels, width, height);
+			bin[i] = new int[16];
+		}
+	}
+
+	/**
+	 * @param image framebuffer image
+	 */
+	public ParallelRasterGraphics(RasterImage image) {
+		this(image.getPixels(), image.getWidth(), image.getHeight(), 0, null);
+	}
+
+	public void fillPolygons(int[] xs, int[] ys, int[] offsets, int[] rgb, int count) {
+		if (count < PARALLEL_MIN || tile.length == 1) {
+			super.fillPolygons(xs, ys, offsets, rgb, count);
+			return;
+		}
+		binPolygons(xs, ys, offsets, count);
+		pool.invoke(new TileFill(xs, ys, null, offsets, rgb, 0, tile.length));
+	}
+
+	public void fillPolygonsDepth(int[] xs, int[] ys, float[] iz, int[] offsets, int[] rgb, int count) {
+		if (depth == null || count < PARALLEL_MIN || tile.length == 1) {
+			super.fillPolygonsDepth(xs, ys, iz, offsets, rgb, count);
+			return;
+		}
+		binPolygons(xs, ys, offsets, count);
+		pool.invoke(new TileFill(xs, ys, iz, offsets, rgb, 0, tile.length));
+	}
+
+	/**
+	 * @brief lists, in batch order, the polygons overlapping each tile
+	 */
+	private void binPolygons(int[] xs, int[] ys, int[] offsets, int count) {
+		int i, j, t, tx, ty, tx0, tx1, ty0, ty1, xMin, xMax, yMin, yMax;
+		Arrays.fill(nBin, 0);
+		for (i = 0; i < count; i++) {
+			if (offsets[i + 1] - offsets[i] < 3)
+				continue;
+			xMin = xMax = xs[offsets[i]];
+			yMin = yMax = ys[offsets[i]];
+			for (j = offsets[i] + 1; j < offsets[i + 1]; j++) {
+				if (xs[j] < xMin)
+					xMin = xs[j];
+				else if (xs[j] > xMax)
+					xMax = xs[j];
+				if (ys[j] < yMin)
+					yMin = ys[j];
+				else if (ys[j] > yMax)
+					yMax = ys[j];
+			}
+			xMin = Math.max(xMin, clipX0);
+			xMax = Math.min(xMax, clipX1 - 1);
+			yMin = Math.max(yMin, clipY0);
+			yMax = Math.min(yMax, clipY1 - 1);
+			if (xMin > xMax || yMin > yMax)
+				continue;
+			tx0 = xMin / tileSize;
+			tx1 = xMax / tileSize;
+			ty0 = yMin / tileSize;
+			ty1 = yMax / tileSize;
+			for (ty = ty0; ty <= ty1; ty++) {
+				for (tx = tx0; tx <= tx1; tx++) {
+					t = ty * nTileX + tx;
+					if (nBin[t] == bin[t].length)
+						bin[t] = Arrays.copyOf(bin[t], nBin[t] * 2);
+					bin[t][nBin[t]++] = i;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @brief fills the tiles [from, to[, splitting the range between workers
+	 */
+	private class TileFill extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private int[] xs, ys, offsets, rgb;
+		private float[] iz;
+		private int from, to;
+
+		public TileFill(int[] xs, int[] ys, float[] iz, int[] offsets, int[] rgb, int from, int to) {
+			this.xs = xs;
+			this.ys = ys;
+			this.iz = iz;
+			this.offsets = offsets;
+			this.rgb = rgb;
+			this.from = from;
+			this.to = to;
+		}
+
+		protected void compute() {
+			if (to - from > 1) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new TileFill(xs, ys, iz, offsets, rgb, from, mid), 
+						new TileFill(xs, ys, iz, offsets, rgb, mid, to));
+				return;
+			}
+			int t = from, i, p;
+			RasterGraphics g = tile[t];
+			if (nBin[t] == 0)
+				return;
+			g.setClip((t % nTileX) * tileSize, (t / nTileX) * tileSize, tileSize, tileSize);
+			// keep within the clip rectangle of the whole framebuffer
+			g.clipX0 = Math.max(g.clipX0, clipX0);
+			g.clipY0 = Math.max(g.clipY0, clipY0);
+			g.clipX1 = Math.min(g.clipX1, clipX1);
+			g.clipY1 = Math.min(g.clipY1, clipY1);
+			g.setDepthBuffer(depth);
+			for (i = 0; i < nBin[t]; i++) {
+				p = bin[t][i];
+				if (iz != null)
+					g.fillPolygonDepth(xs, ys, iz, offsets[p], offsets[p + 1] - offsets[p], rgb[p]);
+				else
+					g.fillPolygon(xs, ys, offsets[p], offsets[p + 1] - offsets[p], rgb[p]);
+			}
+		}
+
+	}
+
+}
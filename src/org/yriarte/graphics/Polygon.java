@@ -49,6 +49,17 @@ public class Polygon {
 		this.nEdge = nEdge;
 	}
 
+	/**
+	 * @brief reuses this polygon for other points
+	 * @return this
+	 */
+	public Polygon set(int[] xP, int[] yP, int nEdge) {
+		this.xP = xP;
+		this.yP = yP;
+		this.nEdge = nEdge;
+		return this;
+	}
+
 	/**
 	 * @return the xP
 	 */
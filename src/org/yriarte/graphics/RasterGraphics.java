@@ -0,0 +1,304 @@
+/* Copyright (c) 2010, Luc Yriarte
+ * All rights reserved.
+ * 
+ * @file RasterGraphics.java
+ * @author Luc Yriarte
+ * 
+ * License: BSD <http://www.opensource.org/licenses/bsd-license.php>
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted 
+ * provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright notice, this 
+ * list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright notice, this 
+ * list of conditions and the following disclaimer in the documentation and/or other materials 
+ * provided with the distribution.
+ *     * The name of Luc Yriarte may not be used to endorse or promote products derived 
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR 
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND 
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. 
+ * IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY 
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ * 
+ */
+package org.yriarte.graphics;
+
+import java.util.Arrays;
+
+/**
+ * @brief Software renderer drawing straight into an int[] framebuffer.
+ * 
+ * Polygons are scan converted: a pixel is filled when its center is inside,
+ * with the even-odd rule, each line of a convex polygon being a single span.
+ * Lines are clipped then drawn with Bresenham's algorithm.
+ * Everything is clipped to a rectangle, the whole framebuffer by default.
+ * With a depth buffer, polygons can be drawn with a per pixel depth test.
+ */
+public class RasterGraphics implements DepthGraphics {
+
+	protected int pixels[];
+	protected int width, height;
+	/** current color and clearRect color, 0x00RRGGBB */
+	protected int rgb = 0x808080, background = 0;
+	/** clip rectangle [clipX0, clipX1[ x [clipY0, clipY1[ */
+	protected int clipX0, clipY0, clipX1, clipY1;
+	/** edge crossings of the current scanline */
+	private double crossing[] = new double[16];
+	private LineClipper lineClipper = new LineClipper();
+	/** 1/z per pixel, null without depth test */
+	protected float depth[] = null;
+	/** depth plane of the polygon being filled: iz = izOrigin + izDx * x + izDy * y */
+	private boolean depthTest = false;
+	private double izOrigin, izDx, izDy;
+
+	/**
+	 * @param pixels framebuffer, width * height pixels
+	 * @param width
+	 * @param height
+	 */
+	public RasterGraphics(int[] pixels, int width, int height) {
+		super();
+		this.pixels = pixels;
+		this.width = width;
+		this.height = height;
+		setClip(0, 0, width, height);
+	}
+
+	/**
+	 * @param image framebuffer image
+	 */
+	public RasterGraphics(RasterImage image) {
+		this(image.getPixels(), image.getWidth(), image.getHeight());
+	}
+
+	/**
+	 * @brief restricts drawing to a rectangle of the framebuffer
+	 */
+	public void setClip(int x, int y, int w, int h) {
+		clipX0 = Math.max(x, 0);
+		clipY0 = Math.max(y, 0);
+		clipX1 = Math.min(x + w, width);
+		clipY1 = Math.min(y + h, height);
+	}
+
+	/**
+	 * @param rgb clearRect color as 0x00RRGGBB
+	 */
+	public void setBackground(int rgb) {
+		background = rgb;
+	}
+
+	public int getBackground() {
+		return background;
+	}
+
+	public void setDepthBuffer(float[] depth) {
+		this.depth = depth;
+	}
+
+	public void setColor(Color color) {
+		rgb = color != null ? color.getRGB() : 0x808080;
+	}
+
+	public void drawLine(int x1, int y1, int x2, int y2) {
+		drawLine(x1, y1, x2, y2, rgb);
+	}
+
+	public void drawImage(Image img, int x, int y, Object object) {
+		if (!(img instanceof RasterImage))
+			return;
+		RasterImage raster = (RasterImage) img;
+		int src[] = raster.getPixels();
+		int w = raster.getWidth();
+		int x0 = Math.max(x, clipX0), x1 = Math.min(x + w, clipX1);
+		int y0 = Math.max(y, clipY0), y1 = Math.min(y + raster.getHeight(), clipY1);
+		int j;
+		if (x0 >= x1)
+			return;
+		for (j = y0; j < y1; j++)
+			System.arraycopy(src, (j - y) * w + x0 - x, pixels, j * width + x0, x1 - x0);
+	}
+
+	public void clearRect(int x, int y, int w, int h) {
+		int x0 = Math.max(x, clipX0), x1 = Math.min(x + w, clipX1);
+		int y0 = Math.max(y, clipY0), y1 = Math.min(y + h, clipY1);
+		int j;
+		if (x0 >= x1)
+			return;
+		for (j = y0; j < y1; j++)
+			Arrays.fill(pixels, j * width + x0, j * width + x1, background);
+	}
+
+	public void fillPolygon(Polygon polygon) {
+		fillPolygon(polygon.getxP(), polygon.getyP(), 0, polygon.getnEdge(), rgb);
+	}
+
+	public void fillPolygons(int[] xs, int[] ys, int[] offsets, int[] rgb, int count) {
+		int i;
+		for (i = 0; i < count; i++)
+			fillPolygon(xs, ys, offsets[i], offsets[i + 1] - offsets[i], rgb[i]);
+	}
+
+	public void fillPolygonsDepth(int[] xs, int[] ys, float[] iz, int[] offsets, int[] rgb, int count) {
+		int i;
+		if (depth == null) {
+			fillPolygons(xs, ys, offsets, rgb, count);
+			return;
+		}
+		for (i = 0; i < count; i++)
+			fillPolygonDepth(xs, ys, iz, offsets[i], offsets[i + 1] - offsets[i], rgb[i]);
+	}
+
+	public void drawLines(int[] coords, int count) {
+		int i;
+		for (i = 0; i < count * 4; i += 4)
+			drawLine(coords[i], coords[i + 1], coords[i + 2], coords[i + 3], rgb);
+	}
+
+	/**
+	 * @brief scan converts the polygon of the n points from off in xs and ys
+	 */
+	protected void fillPolygon(int[] xs, int[] ys, int off, int n, int color) {
+		depthTest = false;
+		scanPolygon(xs, ys, off, n, color);
+	}
+
+	/**
+	 * @brief scan converts the polygon with a depth test, 1/z being 
+	 * interpolated on the plane of the polygon's largest triangle
+	 */
+	protected void fillPolygonDepth(int[] xs, int[] ys, float[] iz, int off, int n, int color) {
+		int i, i1 = 0;
+		double d, dMax = 0, x0, y0, w0, x1, y1, w1, x2, y2, w2;
+		if (n < 3)
+			return;
+		x0 = xs[off]; y0 = ys[off];
+		for (i = off + 1; i < off + n - 1; i++) {
+			d = Math.abs((xs[i] - x0) * (ys[i + 1] - y0) - (xs[i + 1] - x0) * (ys[i] - y0));
+			if (d > dMax) {
+				dMax = d;
+				i1 = i;
+			}
+		}
+		if (dMax == 0)
+			return;
+		w0 = iz[off];
+		x1 = xs[i1] - x0; y1 = ys[i1] - y0; w1 = iz[i1] - w0;
+		x2 = xs[i1 + 1] - x0; y2 = ys[i1 + 1] - y0; w2 = iz[i1 + 1] - w0;
+		d = x1 * y2 - x2 * y1;
+		izDx = (w1 * y2 - w2 * y1) / d;
+		izDy = (x1 * w2 - x2 * w1) / d;
+		// sampled at pixel centers
+		izOrigin = w0 + izDx * (0.5 - x0) + izDy * (0.5 - y0);
+		depthTest = true;
+		scanPolygon(xs, ys, off, n, color);
+	}
+
+	private void scanPolygon(int[] xs, int[] ys, int off, int n, int color) {
+		int i, j, y, yMin, yMax, nCross, xa, xb, row;
+		double yc, x0, y0, x1, y1, tmp;
+		if (n < 3)
+			return;
+		yMin = yMax = ys[off];
+		for (i = off + 1; i < off + n; i++) {
+			if (ys[i] < yMin)
+				yMin = ys[i];
+			else if (ys[i] > yMax)
+				yMax = ys[i];
+		}
+		yMin = Math.max(yMin, clipY0);
+		yMax = Math.min(yMax, clipY1 - 1);
+		if (crossing.length < n)
+			crossing = new double[n];
+		for (y = yMin; y <= yMax; y++) {
+			yc = y + 0.5;
+			nCross = 0;
+			x0 = xs[off + n - 1];
+			y0 = ys[off + n - 1];
+			for (i = off; i < off + n; i++) {
+				x1 = xs[i];
+				y1 = ys[i];
+				if ((y0 <= yc && yc < y1) || (y1 <= yc && yc < y0))
+					crossing[nCross++] = x0 + (yc - y0) * (x1 - x0) / (y1 - y0);
+				x0 = x1;
+				y0 = y1;
+			}
+			if (nCross < 2)
+				continue;
+			if (nCross > 2) {
+				for (i = 1; i < nCross; i++) {
+					tmp = crossing[i];
+					for (j = i; j > 0 && crossing[j - 1] > tmp; j--)
+						crossing[j] = crossing[j - 1];
+					crossing[j] = tmp;
+				}
+			}
+			else if (crossing[0] > crossing[1]) {
+				tmp = crossing[0];
+				crossing[0] = crossing[1];
+				crossing[1] = tmp;
+			}
+			row = y * width;
+			for (i = 0; i + 1 < nCross; i += 2) {
+				// pixels whose center x + 0.5 is in [crossing[i], crossing[i + 1][
+				xa = (int) Math.max(Math.ceil(crossing[i] - 0.5), clipX0);
+				xb = (int) Math.min(Math.ceil(crossing[i + 1] - 0.5), clipX1);
+				if (xa >= xb)
+					continue;
+				if (depthTest)
+					depthSpan(row, xa, xb, y, color);
+				else
+					Arrays.fill(pixels, row + xa, row + xb, color);
+			}
+		}
+	}
+
+	private void depthSpan(int row, int xa, int xb, int y, int color) {
+		int p;
+		float iz = (float) (izOrigin + izDx * xa + izDy * y), dx = (float) izDx;
+		for (p = row + xa; p < row + xb; p++) {
+			if (iz > depth[p]) {
+				depth[p] = iz;
+				pixels[p] = color;
+			}
+			iz += dx;
+		}
+	}
+
+	/**
+	 * @brief Liang-Barsky clipping to the clip rectangle, then Bresenham
+	 */
+	protected void drawLine(int x1, int y1, int x2, int y2, int color) {
+		double dx = x2 - x1, dy = y2 - y1, t0, t1;
+		if (!lineClipper.clip(x1, y1, dx, dy, clipX0, clipY0, clipX1 - 1, clipY1 - 1))
+			return;
+		t0 = lineClipper.getT0();
+		t1 = lineClipper.getT1();
+		int xa = (int) Math.round(x1 + t0 * dx), ya = (int) Math.round(y1 + t0 * dy);
+		int xb = (int) Math.round(x1 + t1 * dx), yb = (int) Math.round(y1 + t1 * dy);
+		int sx = xa < xb ? 1 : -1, sy = ya < yb ? 1 : -1;
+		int ex = Math.abs(xb - xa), ey = -Math.abs(yb - ya), err = ex + ey, e2;
+		while (true) {
+			if (xa >= clipX0 && xa < clipX1 && ya >= clipY0 && ya < clipY1)
+				pixels[ya * width + xa] = color;
+			if (xa == xb && ya == yb)
+				break;
+			e2 = 2 * err;
+			if (e2 >= ey) {
+				err += ey;
+				xa += sx;
+			}
+			if (e2 <= ex) {
+				err += ex;
+				ya += sy;
+			}
+		}
+	}
+
+}
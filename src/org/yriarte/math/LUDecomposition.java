@@ -0,0 +1,155 @@
+/* Copyright (c) 2010, Luc Yriarte
+ * All rights reserved.
+ * 
+ * @file LUDecomposition.java
+ * @author Luc Yriarte
+ * 
+ * License: BSD <http://www.opensource.org/licenses/bsd-license.php>
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted 
+ * provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright notice, this 
+ * list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright notice, this 
+ * list of conditions and the following disclaimer in the documentation and/or other materials 
+ * provided with the distribution.
+ *     * The name of Luc Yriarte may not be used to endorse or promote products derived 
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR 
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND 
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. 
+ * IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY 
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ * 
+ */
+package org.yriarte.math;
+
+/**
+ * @brief LU factorisation with partial pivoting of a square matrix:
+ * P.A = L.U, L unit lower triangular and U upper triangular, both stored
+ * in a single cell array.
+ *
+ * The factorisation costs O(n^3) once, then the determinant is O(n) and
+ * every solve O(n^2) per column of the right hand side.
+ */
+public class LUDecomposition {
+
+	protected int n;
+	/** L below the diagonal (unit diagonal implied), U on and above */
+	protected double lu[][];
+	/** line of the original matrix at each line of lu */
+	protected int pivot[];
+	/** +1 or -1, parity of the pivot permutation */
+	protected int pivotSign;
+	protected boolean singular;
+
+	/**
+	 * @brief factorises aMatrix, which is left unchanged
+	 * @param aMatrix square matrix
+	 */
+	public LUDecomposition(Matrix aMatrix) {
+		super();
+		int i, j, k, p;
+		double max, f, tmp[];
+		double cell[][] = aMatrix.getCell();
+		n = aMatrix.getNLines();
+		lu = new double[n][n];
+		pivot = new int[n];
+		pivotSign = 1;
+		singular = false;
+		for (i = 0; i < n; i++) {
+			for (j = 0; j < n; j++)
+				lu[i][j] = cell[i][j];
+			pivot[i] = i;
+		}
+		for (k = 0; k < n; k++) {
+			// largest pivot in column k
+			p = k;
+			max = Math.abs(lu[k][k]);
+			for (i = k + 1; i < n; i++) {
+				if (Math.abs(lu[i][k]) > max) {
+					max = Math.abs(lu[i][k]);
+					p = i;
+				}
+			}
+			if (p != k) {
+				tmp = lu[p]; lu[p] = lu[k]; lu[k] = tmp;
+				j = pivot[p]; pivot[p] = pivot[k]; pivot[k] = j;
+				pivotSign = -pivotSign;
+			}
+			if (lu[k][k] == 0) {
+				singular = true;
+				continue;
+			}
+			for (i = k + 1; i < n; i++) {
+				f = lu[i][k] /= lu[k][k];
+				if (f == 0)
+					continue;
+				for (j = k + 1; j < n; j++)
+					lu[i][j] -= f * lu[k][j];
+			}
+		}
+	}
+
+	/**
+	 * @return true if the matrix has no inverse
+	 */
+	public boolean isSingular() {
+		return singular;
+	}
+
+	/**
+	 * @return the factorised matrix determinant
+	 */
+	public double det() {
+		double determinant = pivotSign;
+		int i;
+		for (i = 0; i < n; i++)
+			determinant *= lu[i][i];
+		return determinant;
+	}
+
+	/**
+	 * @brief solves A.X = B reusing the factorisation.
+	 * A singular matrix gives infinite or NaN cells, as a division by 0 would.
+	 * @param b n lines matrix, one right hand side per column
+	 * @return mResult = X
+	 */
+	public Matrix solve(Matrix b) {
+		int i, j, k, nCols = b.getNCols();
+		double bCell[][] = b.getCell();
+		Matrix mResult = new Matrix(n, nCols);
+		double x[][] = mResult.getCell();
+		for (i = 0; i < n; i++) {
+			for (j = 0; j < nCols; j++)
+				x[i][j] = bCell[pivot[i]][j];
+		}
+		for (j = 0; j < nCols; j++) {
+			// forward substitution: L.Y = P.B
+			for (k = 0; k < n; k++) {
+				for (i = k + 1; i < n; i++)
+					x[i][j] -= x[k][j] * lu[i][k];
+			}
+			// back substitution: U.X = Y
+			for (k = n - 1; k >= 0; k--) {
+				x[k][j] /= lu[k][k];
+				for (i = 0; i < k; i++)
+					x[i][j] -= x[k][j] * lu[i][k];
+			}
+		}
+		return mResult;
+	}
+
+	/**
+	 * @return mResult = the factorised matrix inverted
+	 */
+	public Matrix inv() {
+		return solve(new Matrix(n, n).toId());
+	}
+
+}
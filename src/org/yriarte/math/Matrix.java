@@ -373,6 +373,14 @@ public class Matrix {
 		return mResult;
 	}
 
+	/**
+	 * @brief LU factorisation, keep it to solve several systems
+	 * @return this matrix factorised
+	 */
+	public LUDecomposition lu() {
+		return new LUDecomposition(this);
+	}
+
 	/**
 	 * @return this matrix determinant
 	 */
@@ -382,16 +390,15 @@ public class Matrix {
 					* this.cell[1][0];
 		if (this.nLines == 1)
 			return this.cell[0][0];
-		Matrix minorIJ;
-		double detIJ, determinant = 0, sign = 1;
-		int j;
-		for (j = 0; j < this.nCols; j++) {
-			minorIJ = this.minor(0, j);
-			detIJ = minorIJ.det();
-			determinant += sign * detIJ * this.cell[0][j];
-			sign = -sign;
-		}
-		return determinant;
+		return lu().det();
+	}
+
+	/**
+	 * @param aMatrix right hand side, same number of lines as this matrix
+	 * @return mResult = X such as this * X = aMatrix
+	 */
+	public Matrix solve(Matrix aMatrix) {
+		return lu().solve(aMatrix);
 	}
 
 	/**
@@ -417,11 +424,7 @@ public class Matrix {
 	 * @return mResult = this matrix inverted
 	 */
 	public Matrix inv() {
-		double determinant = this.det();
-		Matrix mResult = this.cofactors();
-		mResult = mResult.transpose();
-		mResult = mResult.mulNum(1 / determinant);
-		return mResult;
+		return lu().inv();
 	}
     
 }
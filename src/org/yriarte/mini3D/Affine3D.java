@@ -0,0 +1,391 @@
+/* Copyright (c) 2010, Luc Yriarte
+ * All rights reserved.
+ * 
+ * @file Affine3D.java
+ * @author Luc Yriarte
+ * 
+ * License: BSD <http://www.opensource.org/licenses/bsd-license.php>
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted 
+ * provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright notice, this 
+ * list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright notice, this 
+ * list of conditions and the following disclaimer in the documentation and/or other materials 
+ * provided with the distribution.
+ *     * The name of Luc Yriarte may not be used to endorse or promote products derived 
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR 
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND 
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. 
+ * IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY 
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ * 
+ */
+package org.yriarte.mini3D;
+
+import org.yriarte.math.Matrix;
+
+/**
+ * @brief 4x4 affine transformation stored as a flat row major double[16].
+ *
+ * The last line is always [0 0 0 1]: products and vertex transforms skip it.
+ * Every operation writes into an existing instance, so transformations can be
+ * combined in the frame loop without allocating.
+ */
+public class Affine3D {
+
+	/** cell [i][j] is m[i * 4 + j] */
+	protected double m[];
+
+	/**
+	 * @brief Identity
+	 */
+	public Affine3D() {
+		super();
+		m = new double[16];
+		toId();
+	}
+
+	/**
+	 * @param aMatrix 4x4 matrix to copy
+	 */
+	public Affine3D(Matrix aMatrix) {
+		super();
+		m = new double[16];
+		set(aMatrix);
+	}
+
+	/**
+	 * @param anAffine transformation to copy
+	 */
+	public Affine3D(Affine3D anAffine) {
+		super();
+		m = new double[16];
+		set(anAffine);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	public String toString() {
+		return toMatrix3D().toString();
+	}
+
+	/**
+	 * @return the flat cell array
+	 */
+	public double[] getCell() {
+		return m;
+	}
+
+	/**
+	 * @brief fills this transformation with the identity
+	 * @return this Affine3D
+	 */
+	public Affine3D toId() {
+		int i;
+		for (i = 0; i < 16; i++)
+			m[i] = 0;
+		m[0] = m[5] = m[10] = m[15] = 1;
+		return this;
+	}
+
+	/**
+	 * @param anAffine
+	 * @return this = anAffine
+	 */
+	public Affine3D set(Affine3D anAffine) {
+		System.arraycopy(anAffine.m, 0, m, 0, 16);
+		return this;
+	}
+
+	/**
+	 * @param aMatrix 4x4 matrix, its last line is ignored
+	 * @return this = aMatrix
+	 */
+	public Affine3D set(Matrix aMatrix) {
+		double c[][] = aMatrix.getCell();
+		int i;
+		for (i = 0; i < 3; i++) {
+			m[i * 4] = c[i][0];
+			m[i * 4 + 1] = c[i][1];
+			m[i * 4 + 2] = c[i][2];
+			m[i * 4 + 3] = c[i][3];
+		}
+		m[12] = m[13] = m[14] = 0;
+		m[15] = 1;
+		return this;
+	}
+
+	/**
+	 * @param aMatrix 4x4 matrix receiving this transformation
+	 * @return aMatrix
+	 */
+	public Matrix get(Matrix aMatrix) {
+		double c[][] = aMatrix.getCell();
+		int i;
+		for (i = 0; i < 4; i++) {
+			c[i][0] = m[i * 4];
+			c[i][1] = m[i * 4 + 1];
+			c[i][2] = m[i * 4 + 2];
+			c[i][3] = m[i * 4 + 3];
+		}
+		return aMatrix;
+	}
+
+	/**
+	 * @return a new Matrix3D copy of this transformation
+	 */
+	public Matrix3D toMatrix3D() {
+		return (Matrix3D) get(new Matrix3D());
+	}
+
+	/**
+	 * @return this = translation matrix
+	 */
+	public Affine3D toTranslation(double x, double y, double z) {
+		toId();
+		m[3] = x;
+		m[7] = y;
+		m[11] = z;
+		return this;
+	}
+
+	/**
+	 * @return this = scale matrix
+	 */
+	public Affine3D toScale(double x, double y, double z) {
+		toId();
+		m[0] = x;
+		m[5] = y;
+		m[10] = z;
+		return this;
+	}
+
+	/**
+	 * @param teta angle in radians
+	 * @return this = rotation by teta radians on the x axis
+	 */
+	public Affine3D toRotationX(double teta) {
+		double cos = Math.cos(teta), sin = Math.sin(teta);
+		toId();
+		m[5] = cos;
+		m[6] = sin;
+		m[9] = -sin;
+		m[10] = cos;
+		return this;
+	}
+
+	/**
+	 * @param teta angle in radians
+	 * @return this = rotation by teta radians on the y axis
+	 */
+	public Affine3D toRotationY(double teta) {
+		double cos = Math.cos(teta), sin = Math.sin(teta);
+		toId();
+		m[0] = cos;
+		m[2] = -sin;
+		m[8] = sin;
+		m[10] = cos;
+		return this;
+	}
+
+	/**
+	 * @param teta angle in radians
+	 * @return this = rotation by teta radians on the z axis
+	 */
+	public Affine3D toRotationZ(double teta) {
+		double cos = Math.cos(teta), sin = Math.sin(teta);
+		toId();
+		m[0] = cos;
+		m[1] = sin;
+		m[4] = -sin;
+		m[5] = cos;
+		return this;
+	}
+
+	/**
+	 * @brief affine product, out may be a or b.
+	 * @return out = a * b
+	 */
+	static public Affine3D mulInto(Affine3D a, Affine3D b, Affine3D out) {
+		return mulInto(a.m, b.m, out);
+	}
+
+	/**
+	 * @brief affine product with a 4x4 matrix, out may be a.
+	 * @return out = a * b
+	 */
+	static public Affine3D mulInto(Affine3D a, Matrix b, Affine3D out) {
+		double c[][] = b.getCell();
+		double am[] = a.m;
+		double r0, r1, r2, r3;
+		int i;
+		for (i = 0; i < 12; i += 4) {
+			r0 = am[i] * c[0][0] + am[i + 1] * c[1][0] + am[i + 2] * c[2][0];
+			r1 = am[i] * c[0][1] + am[i + 1] * c[1][1] + am[i + 2] * c[2][1];
+			r2 = am[i] * c[0][2] + am[i + 1] * c[1][2] + am[i + 2] * c[2][2];
+			r3 = am[i] * c[0][3] + am[i + 1] * c[1][3] + am[i + 2] * c[2][3] + am[i + 3];
+			out.m[i] = r0;
+			out.m[i + 1] = r1;
+			out.m[i + 2] = r2;
+			out.m[i + 3] = r3;
+		}
+		out.m[12] = out.m[13] = out.m[14] = 0;
+		out.m[15] = 1;
+		return out;
+	}
+
+	static private Affine3D mulInto(double a[], double b[], Affine3D out) {
+		double o[] = out.m;
+		double r0, r1, r2, r3;
+		int i;
+		if (o == b) {
+			mulIntoAliased(a, b, o);
+			return out;
+		}
+		// line i of the result only reads line i of a, so out may be a
+		for (i = 0; i < 12; i += 4) {
+			r0 = a[i] * b[0] + a[i + 1] * b[4] + a[i + 2] * b[8];
+			r1 = a[i] * b[1] + a[i + 1] * b[5] + a[i + 2] * b[9];
+			r2 = a[i] * b[2] + a[i + 1] * b[6] + a[i + 2] * b[10];
+			r3 = a[i] * b[3] + a[i + 1] * b[7] + a[i + 2] * b[11] + a[i + 3];
+			o[i] = r0;
+			o[i + 1] = r1;
+			o[i + 2] = r2;
+			o[i + 3] = r3;
+		}
+		o[12] = o[13] = o[14] = 0;
+		o[15] = 1;
+		return out;
+	}
+
+	/**
+	 * out == b : every line of a is combined with the whole of b,
+	 * keep the 12 results in locals before writing.
+	 */
+	static private void mulIntoAliased(double a[], double b[], double o[]) {
+		double r00, r01, r02, r03, r10, r11, r12, r13, r20, r21, r22, r23;
+		r00 = a[0] * b[0] + a[1] * b[4] + a[2] * b[8];
+		r01 = a[0] * b[1] + a[1] * b[5] + a[2] * b[9];
+		r02 = a[0] * b[2] + a[1] * b[6] + a[2] * b[10];
+		r03 = a[0] * b[3] + a[1] * b[7] + a[2] * b[11] + a[3];
+		r10 = a[4] * b[0] + a[5] * b[4] + a[6] * b[8];
+		r11 = a[4] * b[1] + a[5] * b[5] + a[6] * b[9];
+		r12 = a[4] * b[2] + a[5] * b[6] + a[6] * b[10];
+		r13 = a[4] * b[3] + a[5] * b[7] + a[6] * b[11] + a[7];
+		r20 = a[8] * b[0] + a[9] * b[4] + a[10] * b[8];
+		r21 = a[8] * b[1] + a[9] * b[5] + a[10] * b[9];
+		r22 = a[8] * b[2] + a[9] * b[6] + a[10] * b[10];
+		r23 = a[8] * b[3] + a[9] * b[7] + a[10] * b[11] + a[11];
+		o[0] = r00; o[1] = r01; o[2] = r02; o[3] = r03;
+		o[4] = r10; o[5] = r11; o[6] = r12; o[7] = r13;
+		o[8] = r20; o[9] = r21; o[10] = r22; o[11] = r23;
+		o[12] = o[13] = o[14] = 0;
+		o[15] = 1;
+	}
+
+	/**
+	 * @return the determinant of the 3x3 linear part
+	 */
+	public double det() {
+		return m[0] * (m[5] * m[10] - m[6] * m[9])
+			 - m[1] * (m[4] * m[10] - m[6] * m[8])
+			 + m[2] * (m[4] * m[9] - m[5] * m[8]);
+	}
+
+	/**
+	 * @brief Upper bound of the length of a unit vector once transformed,
+	 * exact when the columns of the linear part are orthogonal.
+	 * @return the scale of a bounding sphere radius
+	 */
+	public double maxScale() {
+		double c0 = m[0] * m[0] + m[4] * m[4] + m[8] * m[8];
+		double c1 = m[1] * m[1] + m[5] * m[5] + m[9] * m[9];
+		double c2 = m[2] * m[2] + m[6] * m[6] + m[10] * m[10];
+		double d01 = m[0] * m[1] + m[4] * m[5] + m[8] * m[9];
+		double d02 = m[0] * m[2] + m[4] * m[6] + m[8] * m[10];
+		double d12 = m[1] * m[2] + m[5] * m[6] + m[9] * m[10];
+		double eps = 1e-9 * (c0 + c1 + c2);
+		if (Math.abs(d01) <= eps && Math.abs(d02) <= eps && Math.abs(d12) <= eps)
+			return Math.sqrt(Math.max(c0, Math.max(c1, c2)));
+		// Frobenius norm bounds the largest singular value
+		return Math.sqrt(c0 + c1 + c2);
+	}
+
+	/**
+	 * @brief closed form affine inverse: [A t]^-1 = [A^-1 -A^-1.t]
+	 * out may be a.
+	 * @return out = a inverted
+	 */
+	static public Affine3D invInto(Affine3D a, Affine3D out) {
+		double c[] = a.m, o[] = out.m;
+		double i00, i01, i02, i10, i11, i12, i20, i21, i22, invDet, tx, ty, tz;
+		i00 = c[5] * c[10] - c[6] * c[9];
+		i01 = c[2] * c[9] - c[1] * c[10];
+		i02 = c[1] * c[6] - c[2] * c[5];
+		i10 = c[6] * c[8] - c[4] * c[10];
+		i11 = c[0] * c[10] - c[2] * c[8];
+		i12 = c[2] * c[4] - c[0] * c[6];
+		i20 = c[4] * c[9] - c[5] * c[8];
+		i21 = c[1] * c[8] - c[0] * c[9];
+		i22 = c[0] * c[5] - c[1] * c[4];
+		invDet = 1 / (c[0] * i00 + c[1] * i10 + c[2] * i20);
+		tx = c[3];
+		ty = c[7];
+		tz = c[11];
+		o[0] = i00 * invDet; o[1] = i01 * invDet; o[2] = i02 * invDet;
+		o[4] = i10 * invDet; o[5] = i11 * invDet; o[6] = i12 * invDet;
+		o[8] = i20 * invDet; o[9] = i21 * invDet; o[10] = i22 * invDet;
+		o[3] = -(o[0] * tx + o[1] * ty + o[2] * tz);
+		o[7] = -(o[4] * tx + o[5] * ty + o[6] * tz);
+		o[11] = -(o[8] * tx + o[9] * ty + o[10] * tz);
+		o[12] = o[13] = o[14] = 0;
+		o[15] = 1;
+		return out;
+	}
+
+	/**
+	 * @param anAffine
+	 * @return this = this * anAffine
+	 */
+	public Affine3D mulThis(Affine3D anAffine) {
+		return mulInto(this, anAffine, this);
+	}
+
+	/**
+	 * @param anAffine
+	 * @return this = anAffine * this
+	 */
+	public Affine3D preMulThis(Affine3D anAffine) {
+		return mulInto(anAffine, this, this);
+	}
+
+	/**
+	 * @return x coordinate of this * [x,y,z,1]
+	 */
+	public double transformX(double x, double y, double z) {
+		return m[0] * x + m[1] * y + m[2] * z + m[3];
+	}
+
+	/**
+	 * @return y coordinate of this * [x,y,z,1]
+	 */
+	public double transformY(double x, double y, double z) {
+		return m[4] * x + m[5] * y + m[6] * z + m[7];
+	}
+
+	/**
+	 * @return z coordinate of this * [x,y,z,1]
+	 */
+	public double transformZ(double x, double y, double z) {
+		return m[8] * x + m[9] * y + m[10] * z + m[11];
+	}
+
+}
@@ -0,0 +1,58 @@
+/* Copyright (c) 2010, Luc Yriarte
+ * All rights reserved.
+ * 
+ * @file AutoDepthSorter.java
+ * @author Luc Yriarte
+ * 
+ * License: BSD <http://www.opensource.org/licenses/bsd-license.php>
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted 
+ * provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright notice, this 
+ * list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright notice, this 
+ * list of conditions and the following disclaimer in the documentation and/or other materials 
+ * provided with the distribution.
+ *     * The name of Luc Yriarte may not be used to endorse or promote products derived 
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR 
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND 
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. 
+ * IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY 
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ * 
+ */
+package org.yriarte.mini3D;
+
+import org.yriarte.mini3D.Object3D.PolygonEdgeIndexes;
+
+/**
+ * @brief Chooses the sort strategy from the number of facets:
+ * insertion sort for a few facets, radix sort up to PARALLEL_MIN facets,
+ * parallel sort beyond.
+ */
+public class AutoDepthSorter implements DepthSorter {
+
+	/** facet count thresholds */
+	public static int RADIX_MIN = 64;
+	public static int PARALLEL_MIN = 1 << 17;
+
+	private DepthSorter insertion = new InsertionDepthSorter();
+	private DepthSorter radix = new RadixDepthSorter();
+	private DepthSorter parallel = new ParallelDepthSorter();
+
+	public void sort(PolygonEdgeIndexes facet[], int n) {
+		if (n < RADIX_MIN)
+			insertion.sort(facet, n);
+		else if (n < PARALLEL_MIN || Runtime.getRuntime().availableProcessors() < 2)
+			radix.sort(facet, n);
+		else
+			parallel.sort(facet, n);
+	}
+
+}
@@ -0,0 +1,89 @@
+/* Copyright (c) 2010, Luc Yriarte
+ * All rights reserved.
+ * 
+ * @file BatchObject3D.java
+ * @author Luc Yriarte
+ * 
+ * License: BSD <http://www.opensource.org/licenses/bsd-license.php>
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted 
+ * provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright notice, this 
+ * list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright notice, this 
+ * list of conditions and the following disclaimer in the documentation and/or other materials 
+ * provided with the distribution.
+ *     * The name of Luc Yriarte may not be used to endorse or promote products derived 
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR 
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND 
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. 
+ * IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY 
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ * 
+ */
+
+package org.yriarte.mini3D;
+
+import org.yriarte.graphics.Graphics;
+
+/**
+ * @brief Object whose mesh concatenates the meshes of source objects.
+ * 
+ * Facets are shaded on the ramp of the source they were batched from, 
+ * lines are drawn in its color, between the source's first edge and the 
+ * next source's. Without sources, the object is drawn as any other.
+ */
+abstract class BatchObject3D extends Object3D {
+
+	/** objects the facets shade on, null if none */
+	protected Object3D source[] = null;
+	/** first edge of each source in the mesh, then the edge count */
+	protected int sourceEdge[] = null;
+	protected int nSource = 0;
+
+	/**
+	 * @brief batched facets keep the windings of their source objects
+	 */
+	protected void updateWindings() {
+	}
+
+	/**
+	 * @brief counts the culled facets of each source too, 
+	 * the first rank of its shading ramp
+	 */
+	protected void countCulled() {
+		int i;
+		super.countCulled();
+		if (source == null)
+			return;
+		for (i = 0; i < nSource; i++)
+			source[i].nCulled = 0;
+		for (i = 0; i < nFacet; i++) {
+			if (!facet[i].isVisible())
+				facet[i].shadeObject().nCulled++;
+		}
+	}
+
+	public void paint(Graphics graphics) {
+		int i;
+		if (source == null) {
+			super.paint(graphics);
+			return;
+		}
+		for (i = 0; i < nSource; i++)
+			source[i].brightIndex = source[i].nCulled;
+		if (drawMode == DRAW_WIREFRAME && !outOfView) {
+			for (i = 0; i < nSource; i++)
+				paintLines(graphics, sourceEdge[i], sourceEdge[i + 1], source[i].color);
+			return;
+		}
+		super.paint(graphics);
+	}
+
+}
@@ -0,0 +1,718 @@
+/* Copyright (c) 2010, Luc Yriarte
+ * All rights reserved.
+ * 
+ * @file BspTree.java
+ * @author Luc Yriarte
+ * 
+ * License: BSD <http://www.opensource.org/licenses/bsd-license.php>
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted 
+ * provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright notice, this 
+ * list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright notice, this 
+ * list of conditions and the following disclaimer in the documentation and/or other materials 
+ * provided with the distribution.
+ *     * The name of Luc Yriarte may not be used to endorse or promote products derived 
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR 
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND 
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. 
+ * IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY 
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ * 
+ */
+
+package org.yriarte.mini3D;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+import org.yriarte.mini3D.Object3D.PolygonEdgeIndexes;
+
+/**
+ * @brief Binary space partition of the facets of a static scene, in the
+ * coordinates of its toplevel object. Facets crossing a partition plane
+ * are split in two fragments.
+ *
+ * Built once, the tree gives the painting order from any eye position
+ * by a walk, farthest half-space first, without sorting: interpenetrating
+ * facets are ordered too. The fragments are the facets of a mesh of their
+ * own, projected with the toplevel object transformation. As with facets
+ * sorted by depth, the painted facets of an object get brighter from
+ * the farthest to the nearest.
+ * Object3D builds the tree again after reset() and after transformations 
+ * below the toplevel object change, vertex edits are not tracked.
+ */
+public class BspTree {
+
+	/** partition plane candidates tried for each node */
+	public static int CANDIDATES = 8;
+	/** facets each candidate is tried against */
+	public static int CANDIDATE_SAMPLE = 256;
+	/** cost of a split, against one facet of difference between the half-spaces */
+	public static int SPLIT_COST = 8;
+	/** axis aligned planes tried for each node and axis: at the QUANTILES - 1 inner quantiles */
+	public static int QUANTILES = 4;
+	/** distance to a plane under which a point lies on it, relative to the scene size */
+	public static double EPSILON = 1e-9;
+
+	/** side of a fragment crossing a plane */
+	private static final int SPANNING = 2;
+
+	/**
+	 * @brief facet, or fragment of a facet, being partitioned
+	 */
+	private static class Fragment {
+		double x[], y[], z[];
+		/** vertex of the source mesh of each point, -1 for split points */
+		int id[];
+		int n;
+		/** 1 if the outward normal is the one of the node plane, -1 if opposite, 0 not culled */
+		int facing;
+		/** facet it comes from, its rank in its object, index in the collected facets */
+		PolygonEdgeIndexes facet;
+		int rank, facetIndex;
+		/** orientation of the facet transformation, index of its object */
+		int windingSign, object;
+
+		Fragment(int n, PolygonEdgeIndexes facet, int rank, int windingSign, int facetIndex) {
+			x = new double[n];
+			y = new double[n];
+			z = new double[n];
+			id = new int[n];
+			this.n = n;
+			this.facet = facet;
+			this.rank = rank;
+			this.windingSign = windingSign;
+			this.facetIndex = facetIndex;
+		}
+	}
+
+	/**
+	 * @brief fragments left to partition, below a node
+	 */
+	private static class Job {
+		ArrayList<Fragment> fragments;
+		int parent;
+		boolean front;
+
+		Job(ArrayList<Fragment> fragments, int parent, boolean front) {
+			this.fragments = fragments;
+			this.parent = parent;
+			this.front = front;
+		}
+	}
+
+	private Object3D top;
+	/** holds the fragments mesh and facets */
+	private Object3D holder;
+	/** index in the collected facets of the facet each fragment comes from */
+	private int fragmentFacet[];
+	/** objects holding the collected facets, the one of each fragment, in view */
+	private Object3D sourceObject[];
+	private int fragmentObject[];
+	private boolean inView[];
+	/** shading object of each collected facet, its facet count, painted facets */
+	private int facetShade[], shadeFacets[], shadePainted[], shadeNext[];
+	private IdentityHashMap<Object3D, Integer> shadeIndex;
+	/** rank in the shading ramp of each facet, and the walk that set it */
+	private int facetRank[], facetStamp[], stamp = 0;
+	/** node planes a x + b y + c z + d = 0, unit normal */
+	private double a[], b[], c[], d[];
+	/** front and back subtrees, -1 if empty */
+	private int front[], back[];
+	/** fragments [first, first + count[ lying on the node plane */
+	private int first[], count[];
+	private int nNode = 0, root = -1;
+	/** fragment facing the node plane normal or not, 0 if its object is not culled */
+	private int facing[];
+	/** first vertex id of the mesh being collected */
+	private int nId = 0;
+	private double epsilon;
+	/** fragments collected during the build */
+	private ArrayList<Fragment> built;
+	/** walk stack, painting order of the last walk */
+	private int stack[];
+	private PolygonEdgeIndexes order[];
+	private int orderFragment[], orderRank[];
+	private int nOrder = 0;
+	private Affine3D inverse = new Affine3D();
+	/** view of the last walk, null before the first */
+	private Affine3D ordered = null;
+	private int orderedFocal, orderedScreenX, orderedScreenY;
+
+	/**
+	 * @brief Partitions the facets of top's subtree, as placed by
+	 * the current transformations of its children
+	 * @param top toplevel object
+	 */
+	public BspTree(Object3D top) {
+		ArrayList<Fragment> facets = new ArrayList<Fragment>();
+		ArrayList<Integer> shades = new ArrayList<Integer>();
+		ArrayList<Object3D> objects = new ArrayList<Object3D>();
+		int i;
+		this.top = top;
+		shadeIndex = new IdentityHashMap<Object3D, Integer>();
+		collect(top, new Affine3D(), facets, shades, objects);
+		sourceObject = objects.toArray(new Object3D[objects.size()]);
+		inView = new boolean[sourceObject.length];
+		facetShade = new int[facets.size()];
+		for (i = 0; i < facetShade.length; i++)
+			facetShade[i] = shades.get(i);
+		shadeFacets = new int[shadeIndex.size()];
+		for (Object3D o : shadeIndex.keySet())
+			shadeFacets[shadeIndex.get(o)] = o.nFacet;
+		shadeIndex = null;
+		shadePainted = new int[shadeFacets.length];
+		shadeNext = new int[shadeFacets.length];
+		facetRank = new int[facets.size()];
+		facetStamp = new int[facets.size()];
+		epsilon = EPSILON * extent(facets);
+		grow(Math.max(facets.size(), 16));
+		built = new ArrayList<Fragment>();
+		build(facets);
+		buildHolder();
+		built = null;
+		stack = new int[2 * nNode + 1];
+		order = new PolygonEdgeIndexes[fragmentFacet.length];
+		orderFragment = new int[fragmentFacet.length];
+		orderRank = new int[fragmentFacet.length];
+	}
+
+	/**
+	 * @brief adds the facets of obj's subtree, in the toplevel coordinates
+	 * @param trans transformation from obj to the toplevel coordinates
+	 * @param shades index of the shading object of each facet
+	 * @param objects objects with facets
+	 */
+	private void collect(Object3D obj, Affine3D trans, ArrayList<Fragment> facets, 
+			ArrayList<Integer> shades, ArrayList<Object3D> objects) {
+		int i, j, v, windingSign = 0;
+		double x, y, z;
+		Mesh m = obj.mesh;
+		PolygonEdgeIndexes f;
+		Fragment p;
+		Integer shade;
+		// closed meshes keep the windings against their own center
+		if (obj.backFaceCulling && obj.nFacet > 0) {
+			obj.updateWindings();
+			windingSign = trans.det() < 0 ? -1 : 1;
+		}
+		for (i = 0; i < obj.nFacet; i++) {
+			f = obj.facet[i];
+			p = new Fragment(f.edge.length, f, i, windingSign, facets.size());
+			p.object = objects.size();
+			shade = shadeIndex.get(f.shadeObject());
+			if (shade == null) {
+				shade = shadeIndex.size();
+				shadeIndex.put(f.shadeObject(), shade);
+			}
+			shades.add(shade);
+			for (j = 0; j < p.n; j++) {
+				v = m.edge[f.edge[j]][0];
+				p.id[j] = nId + v;
+				x = m.getX(v);
+				y = m.getY(v);
+				z = m.getZ(v);
+				p.x[j] = trans.transformX(x, y, z);
+				p.y[j] = trans.transformY(x, y, z);
+				p.z[j] = trans.transformZ(x, y, z);
+			}
+			facets.add(p);
+		}
+		if (obj.nFacet > 0) {
+			nId += m.getNVertex();
+			objects.add(obj);
+		}
+		for (i = 0; i < obj.nChild; i++)
+			collect(obj.child[i], Affine3D.mulInto(trans, obj.child[i].transformation, new Affine3D()), 
+					facets, shades, objects);
+	}
+
+	/**
+	 * @return largest coordinate of the facets, 1 if there are none
+	 */
+	private static double extent(ArrayList<Fragment> facets) {
+		int i, j;
+		double e = 1;
+		Fragment p;
+		for (i = 0; i < facets.size(); i++) {
+			p = facets.get(i);
+			for (j = 0; j < p.n; j++)
+				e = Math.max(e, Math.max(Math.abs(p.x[j]), Math.max(Math.abs(p.y[j]), Math.abs(p.z[j]))));
+		}
+		return e;
+	}
+
+	/**
+	 * @brief grows the node arrays, keeping their content
+	 * @param n number of nodes needed
+	 */
+	private void grow(int n) {
+		double na[] = new double[n], nb[] = new double[n], nc[] = new double[n], nd[] = new double[n];
+		int nf[] = new int[n], nk[] = new int[n], nFirst[] = new int[n], nCount[] = new int[n];
+		if (a != null) {
+			System.arraycopy(a, 0, na, 0, nNode);
+			System.arraycopy(b, 0, nb, 0, nNode);
+			System.arraycopy(c, 0, nc, 0, nNode);
+			System.arraycopy(d, 0, nd, 0, nNode);
+			System.arraycopy(front, 0, nf, 0, nNode);
+			System.arraycopy(back, 0, nk, 0, nNode);
+			System.arraycopy(first, 0, nFirst, 0, nNode);
+			System.arraycopy(count, 0, nCount, 0, nNode);
+		}
+		a = na; b = nb; c = nc; d = nd;
+		front = nf; back = nk;
+		first = nFirst; count = nCount;
+	}
+
+	/**
+	 * @brief Partitions the facets, one node at a time: the partition plane
+	 * is the one of the candidate facet with the fewest splits and
+	 * the most balanced half-spaces.
+	 */
+	private void build(ArrayList<Fragment> facets) {
+		ArrayList<Job> jobs = new ArrayList<Job>();
+		ArrayList<Fragment> list, frontList, backList;
+		Job job;
+		Fragment p;
+		double plane[] = new double[4];
+		int i, node;
+		jobs.add(new Job(facets, -1, false));
+		while (!jobs.isEmpty()) {
+			job = jobs.remove(jobs.size() - 1);
+			list = job.fragments;
+			if (!choosePlane(list, plane))
+				continue;
+			if (nNode == a.length)
+				grow(nNode * 2);
+			node = nNode++;
+			a[node] = plane[0];
+			b[node] = plane[1];
+			c[node] = plane[2];
+			d[node] = plane[3];
+			front[node] = back[node] = -1;
+			first[node] = built.size();
+			frontList = new ArrayList<Fragment>();
+			backList = new ArrayList<Fragment>();
+			for (i = 0; i < list.size(); i++) {
+				p = list.get(i);
+				split(p, node, frontList, backList);
+			}
+			count[node] = built.size() - first[node];
+			if (job.parent < 0)
+				root = node;
+			else if (job.front)
+				front[job.parent] = node;
+			else
+				back[job.parent] = node;
+			if (!frontList.isEmpty())
+				jobs.add(new Job(frontList, node, true));
+			if (!backList.isEmpty())
+				jobs.add(new Job(backList, node, false));
+		}
+	}
+
+	/**
+	 * @param plane set to the chosen plane
+	 * @return false if no facet of the list has a plane
+	 */
+	private boolean choosePlane(ArrayList<Fragment> list, double plane[]) {
+		int i, j, k, cost, bestCost = Integer.MAX_VALUE;
+		int step = Math.max(list.size() / CANDIDATES, 1);
+		int sampleStep = Math.max(list.size() / CANDIDATE_SAMPLE, 1);
+		int nSample = (list.size() + sampleStep - 1) / sampleStep;
+		double candidate[] = new double[4], center[] = new double[nSample];
+		Fragment p;
+		for (i = 0; i < list.size(); i += step) {
+			if (!planeOf(list.get(i), candidate))
+				continue;
+			cost = cost(list, sampleStep, candidate, false);
+			if (cost < bestCost) {
+				bestCost = cost;
+				for (k = 0; k < 4; k++)
+					plane[k] = candidate[k];
+			}
+		}
+		// axis aligned planes, between objects: they hold no facet
+		for (k = 0; k < 3 && list.size() > 1; k++) {
+			for (i = 0, j = 0; i < list.size(); i += sampleStep) {
+				p = list.get(i);
+				center[j++] = k == 0 ? p.x[0] : (k == 1 ? p.y[0] : p.z[0]);
+			}
+			Arrays.sort(center, 0, j);
+			for (i = 1; i < QUANTILES; i++) {
+				candidate[0] = k == 0 ? 1 : 0;
+				candidate[1] = k == 1 ? 1 : 0;
+				candidate[2] = k == 2 ? 1 : 0;
+				candidate[3] = -center[j * i / QUANTILES];
+				cost = cost(list, sampleStep, candidate, true);
+				if (cost < bestCost) {
+					bestCost = cost;
+					System.arraycopy(candidate, 0, plane, 0, 4);
+				}
+			}
+		}
+		if (bestCost < Integer.MAX_VALUE)
+			return true;
+		// no candidate had a plane, the other facets may
+		for (i = 0; i < list.size(); i++) {
+			if (planeOf(list.get(i), plane))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @return cost of partitioning the sampled fragments of the list by plane
+	 * @param separate a plane holding no fragment must leave some on each side
+	 */
+	private int cost(ArrayList<Fragment> list, int sampleStep, double plane[], boolean separate) {
+		int i, side, nFront = 0, nBack = 0, nSplit = 0;
+		for (i = 0; i < list.size(); i += sampleStep) {
+			side = side(list.get(i), plane);
+			if (side == SPANNING)
+				nSplit++;
+			else if (side > 0)
+				nFront++;
+			else if (side < 0)
+				nBack++;
+		}
+		if (separate && nSplit == 0 && (nFront == 0 || nBack == 0))
+			return Integer.MAX_VALUE;
+		return nSplit * SPLIT_COST + Math.abs(nFront - nBack);
+	}
+
+	/**
+	 * @brief Newell's normal of the fragment points, normalized
+	 * @return false if the fragment has no area
+	 */
+	private boolean planeOf(Fragment p, double plane[]) {
+		int i, j;
+		double nx = 0, ny = 0, nz = 0, cx = 0, cy = 0, cz = 0, len;
+		for (i = 0; i < p.n; i++) {
+			j = i + 1 < p.n ? i + 1 : 0;
+			nx += (p.y[i] - p.y[j]) * (p.z[i] + p.z[j]);
+			ny += (p.z[i] - p.z[j]) * (p.x[i] + p.x[j]);
+			nz += (p.x[i] - p.x[j]) * (p.y[i] + p.y[j]);
+			cx += p.x[i];
+			cy += p.y[i];
+			cz += p.z[i];
+		}
+		len = Math.sqrt(nx * nx + ny * ny + nz * nz);
+		if (len <= epsilon * epsilon)
+			return false;
+		plane[0] = nx / len;
+		plane[1] = ny / len;
+		plane[2] = nz / len;
+		plane[3] = -(plane[0] * cx + plane[1] * cy + plane[2] * cz) / p.n;
+		return true;
+	}
+
+	/**
+	 * @return 1 in front of the plane, -1 behind, 0 on the plane, SPANNING across
+	 */
+	private int side(Fragment p, double plane[]) {
+		int i, side = 0;
+		double s;
+		for (i = 0; i < p.n; i++) {
+			s = plane[0] * p.x[i] + plane[1] * p.y[i] + plane[2] * p.z[i] + plane[3];
+			if (s > epsilon)
+				side |= 1;
+			else if (s < -epsilon)
+				side |= 4;
+		}
+		switch (side) {
+		case 1:
+			return 1;
+		case 4:
+			return -1;
+		case 0:
+			return 0;
+		default:
+			return SPANNING;
+		}
+	}
+
+	/**
+	 * @brief adds p to the node if it lies on its plane, to the front or
+	 * back list, or splits it between them
+	 */
+	private void split(Fragment p, int node, ArrayList<Fragment> frontList, ArrayList<Fragment> backList) {
+		int i, j, nf = 0, nb = 0;
+		double s[] = new double[p.n], t, x, y, z;
+		Fragment f, k;
+		boolean inFront = false, behind = false;
+		for (i = 0; i < p.n; i++) {
+			s[i] = a[node] * p.x[i] + b[node] * p.y[i] + c[node] * p.z[i] + d[node];
+			if (s[i] > epsilon)
+				inFront = true;
+			else if (s[i] < -epsilon)
+				behind = true;
+		}
+		if (!inFront && !behind) {
+			p.facing = p.facet.getWinding() * p.windingSign * normalSide(p, node);
+			built.add(p);
+			return;
+		}
+		if (!behind) {
+			frontList.add(p);
+			return;
+		}
+		if (!inFront) {
+			backList.add(p);
+			return;
+		}
+		// each side gets at most one point more
+		f = new Fragment(p.n + 1, p.facet, p.rank, p.windingSign, p.facetIndex);
+		k = new Fragment(p.n + 1, p.facet, p.rank, p.windingSign, p.facetIndex);
+		f.object = k.object = p.object;
+		for (i = 0, j = p.n - 1; i < p.n; j = i++) {
+			if ((s[j] > epsilon && s[i] < -epsilon) || (s[j] < -epsilon && s[i] > epsilon)) {
+				t = s[j] / (s[j] - s[i]);
+				x = p.x[j] + t * (p.x[i] - p.x[j]);
+				y = p.y[j] + t * (p.y[i] - p.y[j]);
+				z = p.z[j] + t * (p.z[i] - p.z[j]);
+				f.x[nf] = k.x[nb] = x;
+				f.y[nf] = k.y[nb] = y;
+				f.z[nf] = k.z[nb] = z;
+				f.id[nf++] = k.id[nb++] = -1;
+			}
+			if (s[i] >= -epsilon) {
+				f.x[nf] = p.x[i];
+				f.y[nf] = p.y[i];
+				f.z[nf] = p.z[i];
+				f.id[nf++] = p.id[i];
+			}
+			if (s[i] <= epsilon) {
+				k.x[nb] = p.x[i];
+				k.y[nb] = p.y[i];
+				k.z[nb] = p.z[i];
+				k.id[nb++] = p.id[i];
+			}
+		}
+		f.n = nf;
+		k.n = nb;
+		if (nf >= 3)
+			frontList.add(f);
+		if (nb >= 3)
+			backList.add(k);
+	}
+
+	/**
+	 * @return sign of the dot product of the fragment normal and the node plane normal
+	 */
+	private int normalSide(Fragment p, int node) {
+		int i, j;
+		double nx = 0, ny = 0, nz = 0, dot;
+		for (i = 0; i < p.n; i++) {
+			j = i + 1 < p.n ? i + 1 : 0;
+			nx += (p.y[i] - p.y[j]) * (p.z[i] + p.z[j]);
+			ny += (p.z[i] - p.z[j]) * (p.x[i] + p.x[j]);
+			nz += (p.x[i] - p.x[j]) * (p.y[i] + p.y[j]);
+		}
+		dot = nx * a[node] + ny * b[node] + nz * c[node];
+		return dot > 0 ? 1 : (dot < 0 ? -1 : 0);
+	}
+
+	/**
+	 * @brief bakes the fragments in the node order into the holder mesh,
+	 * each fragment a facet keeping the shading and orientation of its facet.
+	 * Points of the same source vertex are one vertex of the mesh, with an
+	 * edge from itself for the facets to index it.
+	 */
+	private void buildHolder() {
+		int i, j, nV = 0, n = 0, fe[], m[][], vertexOf[] = new int[nId];
+		double x[], y[], z[];
+		Fragment p;
+		PolygonEdgeIndexes f[] = new PolygonEdgeIndexes[built.size()];
+		for (i = 0; i < built.size(); i++)
+			n += built.get(i).n;
+		Arrays.fill(vertexOf, -1);
+		x = new double[n];
+		y = new double[n];
+		z = new double[n];
+		holder = new Object3D();
+		fragmentFacet = new int[built.size()];
+		fragmentObject = new int[built.size()];
+		facing = new int[built.size()];
+		for (i = 0; i < built.size(); i++) {
+			p = built.get(i);
+			fe = new int[p.n];
+			for (j = 0; j < p.n; j++) {
+				if (p.id[j] >= 0 && vertexOf[p.id[j]] >= 0) {
+					fe[j] = vertexOf[p.id[j]];
+					continue;
+				}
+				if (p.id[j] >= 0)
+					vertexOf[p.id[j]] = nV;
+				x[nV] = p.x[j];
+				y[nV] = p.y[j];
+				z[nV] = p.z[j];
+				fe[j] = nV++;
+			}
+			f[i] = holder.new PolygonEdgeIndexes(holder, fe);
+			f[i].batchedFrom(p.facet, p.rank, p.windingSign);
+			fragmentFacet[i] = p.facetIndex;
+			fragmentObject[i] = p.object;
+			facing[i] = p.facing;
+		}
+		m = new int[nV][2];
+		for (i = 0; i < nV; i++)
+			m[i][0] = m[i][1] = i;
+		holder.setMesh(new Mesh(nV, nV, Arrays.copyOf(x, nV), Arrays.copyOf(y, nV), Arrays.copyOf(z, nV), m));
+		if (Mesh.STORAGE_DEFAULT == Mesh.STORAGE_FLOAT)
+			holder.mesh.setStorage(Mesh.STORAGE_FLOAT);
+		holder.setFacet(f, f.length);
+	}
+
+	/**
+	 * @brief Projects the fragments with the toplevel object transformation,
+	 * then walks the tree from the eye: the visible fragments of the objects
+	 * in view, farthest first, are the painting order. Then ranks the facets
+	 * in their shading ramp. Nothing is done if the view and the objects
+	 * in view did not change since the last walk.
+	 */
+	public void order(int focal, int screenX, int screenY) {
+		int i, node, sp = 0, near, far;
+		double ex, ey, ez, side;
+		boolean changed = false;
+		PolygonEdgeIndexes f;
+		Affine3D trans = top.updatedTransform;
+		if (root < 0)
+			return;
+		for (i = 0; i < sourceObject.length; i++) {
+			if (inView[i] == sourceObject[i].outOfView) {
+				inView[i] = !inView[i];
+				changed = true;
+			}
+		}
+		if (!changed && ordered != null && Arrays.equals(ordered.getCell(), trans.getCell()) 
+				&& focal == orderedFocal && screenX == orderedScreenX && screenY == orderedScreenY)
+			return;
+		if (ordered == null)
+			ordered = new Affine3D();
+		ordered.set(trans);
+		orderedFocal = focal;
+		orderedScreenX = screenX;
+		orderedScreenY = screenY;
+		nOrder = 0;
+		holder.mesh.transformProject(trans, focal, screenX, screenY);
+		holder.cullSign = trans.det() < 0 ? -1 : 1;
+		// the eye, in the toplevel coordinates
+		Affine3D.invInto(trans, inverse);
+		ex = inverse.transformX(0, 0, 0);
+		ey = inverse.transformY(0, 0, 0);
+		ez = inverse.transformZ(0, 0, 0);
+		stack[sp++] = root;
+		while (sp > 0) {
+			node = stack[--sp];
+			if (node < 0) {
+				// the fragments on the plane of node ~node, 
+				// those of closed meshes facing the eye
+				node = ~node;
+				side = a[node] * ex + b[node] * ey + c[node] * ez + d[node];
+				for (i = first[node]; i < first[node] + count[node]; i++) {
+					if (facing[i] != 0 && facing[i] * side <= 0)
+						continue;
+					if (!inView[fragmentObject[i]])
+						continue;
+					f = holder.facet[i];
+					f.updatePolygon();
+					if (f.isVisible()) {
+						orderFragment[nOrder] = i;
+						order[nOrder++] = f;
+					}
+				}
+				continue;
+			}
+			if (a[node] * ex + b[node] * ey + c[node] * ez + d[node] >= 0) {
+				near = front[node];
+				far = back[node];
+			} else {
+				near = back[node];
+				far = front[node];
+			}
+			// popped in reverse: far subtree, this node, near subtree
+			if (near >= 0)
+				stack[sp++] = near;
+			stack[sp++] = ~node;
+			if (far >= 0)
+				stack[sp++] = far;
+		}
+		rankFacets();
+	}
+
+	/**
+	 * @brief Ranks the painted facets of each object from the farthest, 
+	 * after those left unpainted, as the painted facets sorted by depth: 
+	 * a facet ranks at its first painted fragment.
+	 */
+	private void rankFacets() {
+		int i, g;
+		stamp++;
+		for (i = 0; i < shadePainted.length; i++)
+			shadePainted[i] = 0;
+		for (i = 0; i < nOrder; i++) {
+			g = fragmentFacet[orderFragment[i]];
+			if (facetStamp[g] != stamp) {
+				facetStamp[g] = stamp;
+				shadePainted[facetShade[g]]++;
+			}
+		}
+		for (i = 0; i < shadeNext.length; i++)
+			shadeNext[i] = shadeFacets[i] - shadePainted[i];
+		stamp++;
+		for (i = 0; i < nOrder; i++) {
+			g = fragmentFacet[orderFragment[i]];
+			if (facetStamp[g] != stamp) {
+				facetStamp[g] = stamp;
+				facetRank[g] = shadeNext[facetShade[g]]++;
+			}
+			orderRank[i] = facetRank[g];
+		}
+	}
+
+	/**
+	 * @return fragments in painting order, see getNOrder()
+	 */
+	public PolygonEdgeIndexes[] getOrder() {
+		return order;
+	}
+
+	/**
+	 * @return rank in its object shading ramp of each fragment in painting order
+	 */
+	public int[] getRank() {
+		return orderRank;
+	}
+
+	/**
+	 * @return number of fragments painted after the last order()
+	 */
+	public int getNOrder() {
+		return nOrder;
+	}
+
+	/**
+	 * @return number of fragments the facets were split into
+	 */
+	public int getNFragment() {
+		return fragmentFacet.length;
+	}
+
+	/**
+	 * @return number of nodes of the tree
+	 */
+	public int getNNode() {
+		return nNode;
+	}
+
+}
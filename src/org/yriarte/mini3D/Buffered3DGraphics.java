@@ -31,6 +31,9 @@
 
 package org.yriarte.mini3D;
 
+import java.util.Arrays;
+
+import org.yriarte.graphics.DepthGraphics;
 import org.yriarte.graphics.Graphics;
 import org.yriarte.graphics.Image;
 
@@ -41,7 +44,11 @@ public class Buffered3DGraphics {
 	private int drawMode;
 	
 	private Object3D model;
+	/** point of view on the model */
+	private Camera camera = new Camera();
 	private Image bufferedImage;
+	/** 1/z per pixel for DRAW_ZBUFFER */
+	private float depth[] = null;
 	
 
 	public Buffered3DGraphics(Object3D o, Image i, int w, int h, int f) {
@@ -51,6 +58,8 @@ public class Buffered3DGraphics {
 	
 	public void init(Object3D o, Image i, int w, int h, int f) {
 		drawMode = Object3D.DRAW_DEFAULT;
+		if (bufferedImage != null && bufferedImage != i)
+			bufferedImage.dispose();
 		model = o;
 		width = w;
 		height = h;
@@ -58,11 +67,29 @@ public class Buffered3DGraphics {
 		bufferedImage = i;
 	}
 
+	/**
+	 * @brief Updates and paints the model in the buffered image.
+	 * DRAW_ZBUFFER falls back to DRAW_FACETS if the image graphics 
+	 * has no depth buffer support.
+	 */
 	public void updateModel() {
-		model.setDrawMode(drawMode);
-		model.update(focal, width, height);
-		bufferedImage.getGraphics().clearRect(0,0,width,height);
-		model.paint(bufferedImage.getGraphics());
+		Graphics g = bufferedImage.getGraphics();
+		int mode = drawMode;
+		if (mode == Object3D.DRAW_ZBUFFER) {
+			if (g instanceof DepthGraphics) {
+				if (depth == null || depth.length != width * height)
+					depth = new float[width * height];
+				else
+					Arrays.fill(depth, 0);
+				((DepthGraphics) g).setDepthBuffer(depth);
+			}
+			else
+				mode = Object3D.DRAW_FACETS;
+		}
+		model.setDrawMode(mode);
+		model.update(focal, width, height, camera.getTransformation());
+		g.clearRect(0,0,width,height);
+		model.paint(g);
 	}
 
 	public void updateView(Graphics g) {
@@ -92,5 +119,19 @@ public class Buffered3DGraphics {
     public void setModel(Object3D model) {
         this.model = model;
     }
+
+    /**
+     * @return the camera, moved in place to navigate the model
+     */
+    public Camera getCamera() {
+        return camera;
+    }
+
+    /**
+     * @param camera point of view on the model, may be shared by several graphics
+     */
+    public void setCamera(Camera camera) {
+        this.camera = camera;
+    }
     
 }
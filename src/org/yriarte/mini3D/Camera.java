@@ -0,0 +1,109 @@
+/* Copyright (c) 2010, Luc Yriarte
+ * All rights reserved.
+ * 
+ * @file Camera.java
+ * @author Luc Yriarte
+ * 
+ * License: BSD <http://www.opensource.org/licenses/bsd-license.php>
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted 
+ * provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright notice, this 
+ * list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright notice, this 
+ * list of conditions and the following disclaimer in the documentation and/or other materials 
+ * provided with the distribution.
+ *     * The name of Luc Yriarte may not be used to endorse or promote products derived 
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR 
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND 
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. 
+ * IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY 
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ * 
+ */
+
+package org.yriarte.mini3D;
+
+import org.yriarte.math.Matrix;
+
+/**
+ * @brief Point of view of a Buffered3DGraphics, apart from its model.
+ *
+ * The camera transformation takes the model coordinates to the eye
+ * coordinates, the eye looking along the z axis: position * orientation,
+ * as an Object3D transformation. Moving the camera leaves the model
+ * transformations, and the world transformations they combine, unchanged.
+ */
+public class Camera {
+
+	/** Position, Orientation and combined transformation on the model */
+	protected Matrix position, orientation, transformation;
+
+	public Camera() {
+		super();
+		position = new Matrix3D();
+		orientation = new Matrix3D();
+		transformation = new Matrix3D();
+	}
+
+	/**
+	 * @param position the position matrix, kept by the camera
+	 * @param orientation the orientation matrix, kept by the camera
+	 */
+	public Camera(Matrix position, Matrix orientation) {
+		super();
+		this.position = position;
+		this.orientation = orientation;
+		transformation = position.mul(orientation);
+	}
+
+	/**
+	 * @return the transformation from the model coordinates to the eye's
+	 */
+	public Matrix getTransformation() {
+		return transformation;
+	}
+
+	/**
+	 * @return the position matrix
+	 */
+	public Matrix getPosition() {
+		return position;
+	}
+
+	public Camera setPosition(Matrix position) {
+		this.position = position;
+		Matrix3D.mulInto(position, orientation, transformation);
+		return this;
+	}
+
+	/**
+	 * @return the orientation matrix
+	 */
+	public Matrix getOrientation() {
+		return orientation;
+	}
+
+	public Camera setOrientation(Matrix orientation) {
+		this.orientation = orientation;
+		Matrix3D.mulInto(position, orientation, transformation);
+		return this;
+	}
+
+	/**
+	 * @brief apply a transformation matrix to the camera's coordinate system
+	 * @param trans a transformation matrix
+	 * @return this Camera
+	 */
+	public Camera transform(Matrix trans) {
+		Matrix3D.mulInto(transformation, trans, transformation);
+		return this;
+	}
+
+}
@@ -0,0 +1,366 @@
+/* Copyright (c) 2010, Luc Yriarte
+ * All rights reserved.
+ * 
+ * @file CompiledScene.java
+ * @author Luc Yriarte
+ * 
+ * License: BSD <http://www.opensource.org/licenses/bsd-license.php>
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted 
+ * provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright notice, this 
+ * list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright notice, this 
+ * list of conditions and the following disclaimer in the documentation and/or other materials 
+ * provided with the distribution.
+ *     * The name of Luc Yriarte may not be used to endorse or promote products derived 
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR 
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND 
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. 
+ * IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY 
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ * 
+ */
+
+package org.yriarte.mini3D;
+
+import org.yriarte.math.Matrix;
+import org.yriarte.mini3D.Object3D.PolygonEdgeIndexes;
+
+/**
+ * @brief Component tree compiled into arrays, each node after its parent.
+ *
+ * A node keeps the index of its parent, its transformation and the combined
+ * transformation to the toplevel object as STRIDE doubles of flat arrays,
+ * cell [i][j] at i * 4 + j as in Affine3D, and the range of its mesh
+ * vertices in flat coordinate arrays. update() refreshes them with linear
+ * loops over the nodes: the transformations are read from the objects,
+ * the combined ones and the vertices in the toplevel object coordinates
+ * are computed again below a change only. The toplevel transformation is
+ * left out, moving the whole scene transforms no vertex.
+ * The scene is compiled again once isValid() tells the component tree,
+ * a mesh or the facets of an object changed.
+ */
+public class CompiledScene {
+
+	/** doubles per transformation */
+	public static final int STRIDE = 16;
+
+	private Object3D node[];
+	private int nNode = 0;
+	/** index of each node's parent, -1 for the toplevel object */
+	private int parent[];
+	/** node transformations, and their combination to the toplevel object */
+	private double local[], world[];
+	/** combined transformation changed by the last update */
+	private boolean moved[];
+	/** children, mesh and facets each node was compiled with */
+	private Object3D nodeChild[][];
+	private int nodeNChild[];
+	private Mesh nodeMesh[];
+	private PolygonEdgeIndexes nodeFacet[][];
+	private int nodeNFacet[];
+	/** mesh ranges: first vertex and vertex count in the coordinate arrays */
+	private int vertexFirst[], vertexCount[];
+	/** mesh modCount of the copied vertices, copied again by the last update */
+	private int vertexModCount[];
+	private boolean reloaded[];
+	/** mesh vertices in their object coordinates, and in the toplevel's */
+	private double x[], y[], z[], worldX[], worldY[], worldZ[];
+	private int nVertex = 0;
+	/** false until the first update computes every node */
+	private boolean updated = false;
+
+	/**
+	 * @param top toplevel object of the component tree
+	 */
+	public CompiledScene(Object3D top) {
+		super();
+		int i, n = countNodes(top);
+		node = new Object3D[n];
+		parent = new int[n];
+		local = new double[n * STRIDE];
+		world = new double[n * STRIDE];
+		moved = new boolean[n];
+		nodeChild = new Object3D[n][];
+		nodeNChild = new int[n];
+		nodeMesh = new Mesh[n];
+		nodeFacet = new PolygonEdgeIndexes[n][];
+		nodeNFacet = new int[n];
+		vertexFirst = new int[n];
+		vertexCount = new int[n];
+		vertexModCount = new int[n];
+		reloaded = new boolean[n];
+		addNode(top, -1);
+		x = new double[nVertex];
+		y = new double[nVertex];
+		z = new double[nVertex];
+		worldX = new double[nVertex];
+		worldY = new double[nVertex];
+		worldZ = new double[nVertex];
+		// the last line of every transformation, the toplevel ones identities
+		for (i = 0; i < nNode; i++) {
+			local[i * STRIDE + 15] = world[i * STRIDE + 15] = 1;
+		}
+		local[0] = local[5] = local[10] = 1;
+		world[0] = world[5] = world[10] = 1;
+	}
+
+	private static int countNodes(Object3D obj) {
+		int i, n = 1;
+		for (i = 0; i < obj.nChild; i++)
+			n += countNodes(obj.child[i]);
+		return n;
+	}
+
+	/**
+	 * @brief adds obj then its subtree to the nodes
+	 * @param p index of obj's parent
+	 */
+	private void addNode(Object3D obj, int p) {
+		int i, index = nNode++;
+		node[index] = obj;
+		parent[index] = p;
+		nodeChild[index] = obj.child;
+		nodeNChild[index] = obj.nChild;
+		nodeMesh[index] = obj.mesh;
+		nodeFacet[index] = obj.facet;
+		nodeNFacet[index] = obj.nFacet;
+		vertexFirst[index] = nVertex;
+		vertexCount[index] = obj.mesh != null ? obj.mesh.getNVertex() : 0;
+		nVertex += vertexCount[index];
+		for (i = 0; i < obj.nChild; i++)
+			addNode(obj.child[i], index);
+	}
+
+	/**
+	 * @return false if the component tree, a mesh or the facets
+	 * of an object changed since the scene was compiled
+	 */
+	public boolean isValid() {
+		int i;
+		Object3D o;
+		for (i = 0; i < nNode; i++) {
+			o = node[i];
+			if (o.child != nodeChild[i] || o.nChild != nodeNChild[i] || o.mesh != nodeMesh[i]
+					|| o.facet != nodeFacet[i] || o.nFacet != nodeNFacet[i])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @brief Reads the node transformations, combines those below a change
+	 * with their parent's, then copies the vertices of the changed meshes
+	 * and transforms those of the nodes moved or reloaded.
+	 */
+	public void update() {
+		int i, p;
+		Mesh m;
+		moved[0] = !updated;
+		for (i = 1; i < nNode; i++) {
+			p = parent[i];
+			moved[i] = setLocal(i, node[i].transformation) || moved[p];
+			if (moved[i])
+				mul(world, p * STRIDE, local, i * STRIDE, world, i * STRIDE);
+		}
+		for (i = 0; i < nNode; i++) {
+			if (vertexCount[i] == 0)
+				continue;
+			m = node[i].mesh;
+			reloaded[i] = !updated || m.getModCount() != vertexModCount[i];
+			if (reloaded[i])
+				copyVertices(i, m);
+			if (reloaded[i] || moved[i])
+				transformVertices(i);
+		}
+		updated = true;
+	}
+
+	/**
+	 * @brief local transformation of node i = trans
+	 * @return true if it changed
+	 */
+	private boolean setLocal(int i, Matrix trans) {
+		int j, k, o = i * STRIDE;
+		double c[][] = trans.getCell();
+		boolean changed = false;
+		for (j = 0; j < 3; j++) {
+			for (k = 0; k < 4; k++) {
+				if (local[o + j * 4 + k] != c[j][k]) {
+					local[o + j * 4 + k] = c[j][k];
+					changed = true;
+				}
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * @brief affine product of the transformations at a[ao] and b[bo]
+	 * into out[oo], out not overlapping b
+	 */
+	private static void mul(double a[], int ao, double b[], int bo, double out[], int oo) {
+		int i;
+		double r0, r1, r2, r3;
+		for (i = 0; i < 12; i += 4) {
+			r0 = a[ao + i] * b[bo] + a[ao + i + 1] * b[bo + 4] + a[ao + i + 2] * b[bo + 8];
+			r1 = a[ao + i] * b[bo + 1] + a[ao + i + 1] * b[bo + 5] + a[ao + i + 2] * b[bo + 9];
+			r2 = a[ao + i] * b[bo + 2] + a[ao + i + 1] * b[bo + 6] + a[ao + i + 2] * b[bo + 10];
+			r3 = a[ao + i] * b[bo + 3] + a[ao + i + 1] * b[bo + 7] + a[ao + i + 2] * b[bo + 11] + a[ao + i + 3];
+			out[oo + i] = r0;
+			out[oo + i + 1] = r1;
+			out[oo + i + 2] = r2;
+			out[oo + i + 3] = r3;
+		}
+	}
+
+	/**
+	 * @brief copies the mesh vertices of node i in its range
+	 */
+	private void copyVertices(int i, Mesh m) {
+		int j, v = vertexFirst[i];
+		for (j = 0; j < vertexCount[i]; j++, v++) {
+			x[v] = m.getX(j);
+			y[v] = m.getY(j);
+			z[v] = m.getZ(j);
+		}
+		vertexModCount[i] = m.getModCount();
+	}
+
+	/**
+	 * @brief vertices of node i in the toplevel coordinates
+	 */
+	private void transformVertices(int i) {
+		int v, to = vertexFirst[i] + vertexCount[i], o = i * STRIDE;
+		double w[] = world, vx, vy, vz;
+		for (v = vertexFirst[i]; v < to; v++) {
+			vx = x[v];
+			vy = y[v];
+			vz = z[v];
+			worldX[v] = w[o] * vx + w[o + 1] * vy + w[o + 2] * vz + w[o + 3];
+			worldY[v] = w[o + 4] * vx + w[o + 5] * vy + w[o + 6] * vz + w[o + 7];
+			worldZ[v] = w[o + 8] * vx + w[o + 9] * vy + w[o + 10] * vz + w[o + 11];
+		}
+	}
+
+	/**
+	 * @return the bounding box of the vertices in the toplevel coordinates,
+	 * [[xmin,xmax],[ymin,ymax],[zmin,zmax]]
+	 */
+	public Matrix calculateBounds() {
+		int i, v;
+		Matrix bounds = new Matrix(3, 2);
+		double c[][] = bounds.getCell();
+		for (i = 0; i < 3; i++) {
+			c[i][0] = Integer.MAX_VALUE;
+			c[i][1] = Integer.MIN_VALUE;
+		}
+		for (v = 0; v < nVertex; v++) {
+			c[0][0] = Math.min(c[0][0], worldX[v]);
+			c[0][1] = Math.max(c[0][1], worldX[v]);
+			c[1][0] = Math.min(c[1][0], worldY[v]);
+			c[1][1] = Math.max(c[1][1], worldY[v]);
+			c[2][0] = Math.min(c[2][0], worldZ[v]);
+			c[2][1] = Math.max(c[2][1], worldZ[v]);
+		}
+		return bounds;
+	}
+
+	/**
+	 * @return the determinant of the linear part of node i's
+	 * transformation to the toplevel object
+	 */
+	public double det(int i) {
+		double m[] = world;
+		int o = i * STRIDE;
+		return m[o] * (m[o + 5] * m[o + 10] - m[o + 6] * m[o + 9])
+			 - m[o + 1] * (m[o + 4] * m[o + 10] - m[o + 6] * m[o + 8])
+			 + m[o + 2] * (m[o + 4] * m[o + 9] - m[o + 5] * m[o + 8]);
+	}
+
+	/**
+	 * @return true if the last update transformed the vertices of node i again
+	 */
+	public boolean isTransformed(int i) {
+		return vertexCount[i] > 0 && (moved[i] || reloaded[i]);
+	}
+
+	/**
+	 * @return true if the last update copied the mesh vertices of node i again
+	 */
+	public boolean isReloaded(int i) {
+		return vertexCount[i] > 0 && reloaded[i];
+	}
+
+	public int getNNode() {
+		return nNode;
+	}
+
+	public Object3D getNode(int i) {
+		return node[i];
+	}
+
+	/**
+	 * @return index of each node's parent, -1 for the toplevel object
+	 */
+	public int[] getParent() {
+		return parent;
+	}
+
+	/**
+	 * @return the node transformations, STRIDE doubles per node
+	 */
+	public double[] getLocal() {
+		return local;
+	}
+
+	/**
+	 * @return the node transformations to the toplevel object,
+	 * STRIDE doubles per node
+	 */
+	public double[] getWorld() {
+		return world;
+	}
+
+	/**
+	 * @return first vertex of each node's mesh in the coordinate arrays
+	 */
+	public int[] getVertexFirst() {
+		return vertexFirst;
+	}
+
+	/**
+	 * @return vertex count of each node's mesh, 0 without mesh
+	 */
+	public int[] getVertexCount() {
+		return vertexCount;
+	}
+
+	public int getNVertex() {
+		return nVertex;
+	}
+
+	/**
+	 * @return vertices in the toplevel object coordinates,
+	 * each node's mesh in its range
+	 */
+	public double[] getWorldX() {
+		return worldX;
+	}
+
+	public double[] getWorldY() {
+		return worldY;
+	}
+
+	public double[] getWorldZ() {
+		return worldZ;
+	}
+
+}
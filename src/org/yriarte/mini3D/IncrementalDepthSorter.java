@@ -0,0 +1,171 @@
+/* Copyright (c) 2010, Luc Yriarte
+ * All rights reserved.
+ * 
+ * @file IncrementalDepthSorter.java
+ * @author Luc Yriarte
+ * 
+ * License: BSD <http://www.opensource.org/licenses/bsd-license.php>
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted 
+ * provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright notice, this 
+ * list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright notice, this 
+ * list of conditions and the following disclaimer in the documentation and/or other materials 
+ * provided with the distribution.
+ *     * The name of Luc Yriarte may not be used to endorse or promote products derived 
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR 
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND 
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. 
+ * IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY 
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ * 
+ */
+package org.yriarte.mini3D;
+
+import org.yriarte.mini3D.Object3D.PolygonEdgeIndexes;
+
+/**
+ * @brief Repairs the order of the previous frame instead of sorting from scratch.
+ * 
+ * The facet list is sorted in place, so it comes back in the last frame order.
+ * Facets whose z did not change are still sorted among themselves: only the
+ * facets whose z changed are sorted, then merged back. When many facets moved,
+ * as when the point of view changes, an insertion pass repairs the nearly sorted
+ * list, giving up for a full sort if it has to move too many facets.
+ */
+public class IncrementalDepthSorter implements DepthSorter {
+
+	/** merge the changed facets if there are less than n / CHANGED_DIVISOR */
+	public static int CHANGED_DIVISOR = 8;
+	/** insertion pass budget, in facet moves per facet */
+	public static int INSERTION_MOVES = 4;
+
+	private DepthSorter fullSorter, changedSorter;
+	/** z of each facet list position after the last sort */
+	private int sortedZ[] = null;
+	private int sortedN = -1;
+	private PolygonEdgeIndexes kept[] = null, changed[] = null;
+
+	public IncrementalDepthSorter() {
+		this(new AutoDepthSorter());
+	}
+
+	/**
+	 * @param fullSorter sorts the whole list when it cannot be repaired
+	 */
+	public IncrementalDepthSorter(DepthSorter fullSorter) {
+		super();
+		this.fullSorter = fullSorter;
+		changedSorter = new AutoDepthSorter();
+	}
+
+	public void sort(PolygonEdgeIndexes facet[], int n) {
+		if (n < 2)
+			return;
+		if (sortedN != n || sortedZ == null || sortedZ.length < n) {
+			fullSorter.sort(facet, n);
+			keepSorted(facet, n);
+			return;
+		}
+		int i, z, nKept = 0, nChanged = 0, zKept = Integer.MAX_VALUE;
+		boolean keptSorted = true;
+		if (kept == null || kept.length < n) {
+			kept = new PolygonEdgeIndexes[n];
+			changed = new PolygonEdgeIndexes[n];
+		}
+		for (i = 0; i < n; i++) {
+			z = facet[i].getZ();
+			if (z == sortedZ[i]) {
+				// a rebuilt facet list can make unchanged facets unsorted
+				if (z > zKept)
+					keptSorted = false;
+				zKept = z;
+				kept[nKept++] = facet[i];
+			}
+			else
+				changed[nChanged++] = facet[i];
+		}
+		if (keptSorted && nChanged == 0) {
+			clear(n);
+			return;
+		}
+		if (keptSorted && nChanged <= n / CHANGED_DIVISOR) {
+			changedSorter.sort(changed, nChanged);
+			merge(facet, nKept, nChanged);
+		}
+		else if (!insertionPass(facet, n, n * INSERTION_MOVES))
+			fullSorter.sort(facet, n);
+		clear(n);
+		keepSorted(facet, n);
+	}
+
+	/**
+	 * @brief forgets the previous order, next sort is a full sort
+	 */
+	public void reset() {
+		sortedN = -1;
+	}
+
+	/**
+	 * @brief stable merge of two lists sorted by decreasing z, kept facets first
+	 */
+	private void merge(PolygonEdgeIndexes facet[], int nKept, int nChanged) {
+		int i = 0, k = 0, c = 0;
+		while (k < nKept && c < nChanged) {
+			if (changed[c].getZ() > kept[k].getZ())
+				facet[i++] = changed[c++];
+			else
+				facet[i++] = kept[k++];
+		}
+		while (k < nKept)
+			facet[i++] = kept[k++];
+		while (c < nChanged)
+			facet[i++] = changed[c++];
+	}
+
+	/**
+	 * @return false if the insertion sort was stopped after maxMoves moves,
+	 * the list still holds every facet but is not sorted.
+	 */
+	private boolean insertionPass(PolygonEdgeIndexes facet[], int n, int maxMoves) {
+		int i, j, z, moves = 0;
+		PolygonEdgeIndexes tmpFacet;
+		for (i = 1; i < n; i++) {
+			tmpFacet = facet[i];
+			z = tmpFacet.getZ();
+			for (j = i; j > 0 && facet[j - 1].getZ() < z; j--)
+				facet[j] = facet[j - 1];
+			facet[j] = tmpFacet;
+			moves += i - j;
+			if (moves > maxMoves)
+				return false;
+		}
+		return true;
+	}
+
+	private void keepSorted(PolygonEdgeIndexes facet[], int n) {
+		int i;
+		if (sortedZ == null || sortedZ.length < n)
+			sortedZ = new int[n];
+		for (i = 0; i < n; i++)
+			sortedZ[i] = facet[i].getZ();
+		sortedN = n;
+	}
+
+	/**
+	 * @brief drops the scratch references
+	 */
+	private void clear(int n) {
+		int i;
+		for (i = 0; i < n; i++) 
+			kept[i] = changed[i] = null;
+	}
+
+}
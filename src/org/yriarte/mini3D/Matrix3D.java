@@ -1,123 +1,258 @@
-/*
- * Copyright (c) 2008, Luc Yriarte
- * All rights reserved.
- * 
- * @file Matrix3D.java
- * @author Luc Yriarte
- * 
- * License: BSD <http://www.opensource.org/licenses/bsd-license.php>
- * 
- * Redistribution and use in source and binary forms, with or without modification, are permitted 
- * provided that the following conditions are met:
- * 
- *     * Redistributions of source code must retain the above copyright notice, this 
- * list of conditions and the following disclaimer.
- *     * Redistributions in binary form must reproduce the above copyright notice, this 
- * list of conditions and the following disclaimer in the documentation and/or other materials 
- * provided with the distribution.
- *     * The name of Luc Yriarte may not be used to endorse or promote products derived 
- * from this software without specific prior written permission.
- * 
- * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR 
- * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND 
- * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. 
- * IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
- * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
- * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY 
- * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
- * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
- * 
- */
-
-package org.yriarte.mini3D;
-
-import org.yriarte.math.Matrix;
-
-public class Matrix3D extends Matrix {
-
-	static public Matrix3D MatrixAsMatrix3D(Matrix aMatrix) {
-		return new Matrix3D(aMatrix.getCell());
-	}
-	
-	/**
-	 * @brief Identity
-	 */
-	public Matrix3D() {
-		super(4, 4);
-		toId();
-	}
-
-	public Matrix3D(double[][] cell) {
-		nLines = 4;
-		nCols = 4;
-		this.cell = cell;
-	}
-
-	/**
-	 * @param x translation units on the x axis
-	 * @param y translation units on the y axis
-	 * @param z translation units on the z axis
-	 * @return a translated copy of this matrix.
-	 */
-	static public Matrix3D translation(double x, double y, double z) {
-		Matrix3D result = new Matrix3D();
-		result.cell[0][3] = x;
-		result.cell[1][3] = y;
-		result.cell[2][3] = z;
-		return result;
-	}
-
-	/**
-	 * @param x scale factor on the x axis 
-	 * @param y scale factor on the y axis 
-	 * @param z scale factor on the z axis 
-	 * @return a scaled copy of this matrix.
-	 */
-	static public Matrix3D scale(double x, double y, double z) {
-		Matrix3D result = new Matrix3D();
-		result.cell[0][0] = x;
-		result.cell[1][1] = y;
-		result.cell[2][2] = z;
-		return result;
-	}
-
-	/**
-	 * @param teta angle in radians
-	 * @return a copy of this matrix rotated by teta radians on the x axis
-	 */
-	static public Matrix3D rotationX(double teta) {
-		Matrix3D result = new Matrix3D();
-		result.cell[1][1] = Math.cos(teta);
-		result.cell[1][2] = Math.sin(teta);
-		result.cell[2][1] = -Math.sin(teta);
-		result.cell[2][2] = Math.cos(teta);
-		return result;
-	}
-
-	/**
-	 * @param teta angle in radians
-	 * @return a copy of this matrix rotated by teta radians on the y axis
-	 */
-	static public Matrix3D rotationY(double teta) {
-		Matrix3D result = new Matrix3D();
-		result.cell[0][0] = Math.cos(teta);
-		result.cell[0][2] = -Math.sin(teta);
-		result.cell[2][0] = Math.sin(teta);
-		result.cell[2][2] = Math.cos(teta);
-		return result;
-	}
-
-	/**
-	 * @param teta angle in radians
-	 * @return a copy of this matrix rotated by teta radians on the z axis
-	 */
-	static public Matrix3D rotationZ(double teta) {
-		Matrix3D result = new Matrix3D();
-		result.cell[0][0] = Math.cos(teta);
-		result.cell[0][1] = Math.sin(teta);
-		result.cell[1][0] = -Math.sin(teta);
-		result.cell[1][1] = Math.cos(teta);
-		return result;
-	}
-
-}
+/*
+ * Copyright (c) 2008, Luc Yriarte
+ * All rights reserved.
+ * 
+ * @file Matrix3D.java
+ * @author Luc Yriarte
+ * 
+ * License: BSD <http://www.opensource.org/licenses/bsd-license.php>
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted 
+ * provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright notice, this 
+ * list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright notice, this 
+ * list of conditions and the following disclaimer in the documentation and/or other materials 
+ * provided with the distribution.
+ *     * The name of Luc Yriarte may not be used to endorse or promote products derived 
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR 
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND 
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. 
+ * IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY 
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ * 
+ */
+
+package org.yriarte.mini3D;
+
+import org.yriarte.math.Matrix;
+
+public class Matrix3D extends Matrix {
+
+	static public Matrix3D MatrixAsMatrix3D(Matrix aMatrix) {
+		return new Matrix3D(aMatrix.getCell());
+	}
+	
+	/**
+	 * @brief Identity
+	 */
+	public Matrix3D() {
+		super(4, 4);
+		toId();
+	}
+
+	public Matrix3D(double[][] cell) {
+		nLines = 4;
+		nCols = 4;
+		this.cell = cell;
+	}
+
+	/**
+	 * @param aMatrix 4x4 matrix
+	 * @return this = aMatrix, cells are copied
+	 */
+	public Matrix3D set(Matrix aMatrix) {
+		double c[][] = aMatrix.getCell();
+		int i;
+		for (i = 0; i < 4; i++) {
+			cell[i][0] = c[i][0];
+			cell[i][1] = c[i][1];
+			cell[i][2] = c[i][2];
+			cell[i][3] = c[i][3];
+		}
+		return this;
+	}
+
+	/**
+	 * @brief affine product: the constant [0 0 0 1] last line is not computed.
+	 * out may be a or b, no matrix is allocated.
+	 * @return out = a * b
+	 */
+	static public Matrix mulInto(Matrix a, Matrix b, Matrix out) {
+		double ac[][] = a.getCell();
+		double bc[][] = b.getCell();
+		double oc[][] = out.getCell();
+		double r00, r01, r02, r03, r10, r11, r12, r13, r20, r21, r22, r23;
+		r00 = ac[0][0] * bc[0][0] + ac[0][1] * bc[1][0] + ac[0][2] * bc[2][0];
+		r01 = ac[0][0] * bc[0][1] + ac[0][1] * bc[1][1] + ac[0][2] * bc[2][1];
+		r02 = ac[0][0] * bc[0][2] + ac[0][1] * bc[1][2] + ac[0][2] * bc[2][2];
+		r03 = ac[0][0] * bc[0][3] + ac[0][1] * bc[1][3] + ac[0][2] * bc[2][3] + ac[0][3];
+		r10 = ac[1][0] * bc[0][0] + ac[1][1] * bc[1][0] + ac[1][2] * bc[2][0];
+		r11 = ac[1][0] * bc[0][1] + ac[1][1] * bc[1][1] + ac[1][2] * bc[2][1];
+		r12 = ac[1][0] * bc[0][2] + ac[1][1] * bc[1][2] + ac[1][2] * bc[2][2];
+		r13 = ac[1][0] * bc[0][3] + ac[1][1] * bc[1][3] + ac[1][2] * bc[2][3] + ac[1][3];
+		r20 = ac[2][0] * bc[0][0] + ac[2][1] * bc[1][0] + ac[2][2] * bc[2][0];
+		r21 = ac[2][0] * bc[0][1] + ac[2][1] * bc[1][1] + ac[2][2] * bc[2][1];
+		r22 = ac[2][0] * bc[0][2] + ac[2][1] * bc[1][2] + ac[2][2] * bc[2][2];
+		r23 = ac[2][0] * bc[0][3] + ac[2][1] * bc[1][3] + ac[2][2] * bc[2][3] + ac[2][3];
+		oc[0][0] = r00; oc[0][1] = r01; oc[0][2] = r02; oc[0][3] = r03;
+		oc[1][0] = r10; oc[1][1] = r11; oc[1][2] = r12; oc[1][3] = r13;
+		oc[2][0] = r20; oc[2][1] = r21; oc[2][2] = r22; oc[2][3] = r23;
+		oc[3][0] = 0; oc[3][1] = 0; oc[3][2] = 0; oc[3][3] = 1;
+		return out;
+	}
+
+	/**
+	 * @return the determinant of the 3x3 linear part, the last line being [0 0 0 1]
+	 */
+	public double det() {
+		return cell[0][0] * (cell[1][1] * cell[2][2] - cell[1][2] * cell[2][1])
+			 - cell[0][1] * (cell[1][0] * cell[2][2] - cell[1][2] * cell[2][0])
+			 + cell[0][2] * (cell[1][0] * cell[2][1] - cell[1][1] * cell[2][0]);
+	}
+
+	/**
+	 * @return mResult = this matrix inverted
+	 */
+	public Matrix inv() {
+		return invInto(this, new Matrix3D());
+	}
+
+	/**
+	 * @brief closed form affine inverse: [A t]^-1 = [A^-1 -A^-1.t]
+	 * out may be a, no matrix is allocated.
+	 * @return out = a inverted
+	 */
+	static public Matrix invInto(Matrix a, Matrix out) {
+		double c[][] = a.getCell();
+		double oc[][] = out.getCell();
+		double i00, i01, i02, i10, i11, i12, i20, i21, i22, invDet, tx, ty, tz;
+		// cofactors of the linear part, transposed
+		i00 = c[1][1] * c[2][2] - c[1][2] * c[2][1];
+		i01 = c[0][2] * c[2][1] - c[0][1] * c[2][2];
+		i02 = c[0][1] * c[1][2] - c[0][2] * c[1][1];
+		i10 = c[1][2] * c[2][0] - c[1][0] * c[2][2];
+		i11 = c[0][0] * c[2][2] - c[0][2] * c[2][0];
+		i12 = c[0][2] * c[1][0] - c[0][0] * c[1][2];
+		i20 = c[1][0] * c[2][1] - c[1][1] * c[2][0];
+		i21 = c[0][1] * c[2][0] - c[0][0] * c[2][1];
+		i22 = c[0][0] * c[1][1] - c[0][1] * c[1][0];
+		invDet = 1 / (c[0][0] * i00 + c[0][1] * i10 + c[0][2] * i20);
+		tx = c[0][3];
+		ty = c[1][3];
+		tz = c[2][3];
+		oc[0][0] = i00 * invDet; oc[0][1] = i01 * invDet; oc[0][2] = i02 * invDet;
+		oc[1][0] = i10 * invDet; oc[1][1] = i11 * invDet; oc[1][2] = i12 * invDet;
+		oc[2][0] = i20 * invDet; oc[2][1] = i21 * invDet; oc[2][2] = i22 * invDet;
+		oc[0][3] = -(oc[0][0] * tx + oc[0][1] * ty + oc[0][2] * tz);
+		oc[1][3] = -(oc[1][0] * tx + oc[1][1] * ty + oc[1][2] * tz);
+		oc[2][3] = -(oc[2][0] * tx + oc[2][1] * ty + oc[2][2] * tz);
+		oc[3][0] = 0; oc[3][1] = 0; oc[3][2] = 0; oc[3][3] = 1;
+		return out;
+	}
+
+	/**
+	 * @return this = translation matrix
+	 */
+	public Matrix3D toTranslation(double x, double y, double z) {
+		toId();
+		cell[0][3] = x;
+		cell[1][3] = y;
+		cell[2][3] = z;
+		return this;
+	}
+
+	/**
+	 * @return this = scale matrix
+	 */
+	public Matrix3D toScale(double x, double y, double z) {
+		toId();
+		cell[0][0] = x;
+		cell[1][1] = y;
+		cell[2][2] = z;
+		return this;
+	}
+
+	/**
+	 * @param teta angle in radians
+	 * @return this = rotation by teta radians on the x axis
+	 */
+	public Matrix3D toRotationX(double teta) {
+		double cos = Math.cos(teta), sin = Math.sin(teta);
+		toId();
+		cell[1][1] = cos;
+		cell[1][2] = sin;
+		cell[2][1] = -sin;
+		cell[2][2] = cos;
+		return this;
+	}
+
+	/**
+	 * @param teta angle in radians
+	 * @return this = rotation by teta radians on the y axis
+	 */
+	public Matrix3D toRotationY(double teta) {
+		double cos = Math.cos(teta), sin = Math.sin(teta);
+		toId();
+		cell[0][0] = cos;
+		cell[0][2] = -sin;
+		cell[2][0] = sin;
+		cell[2][2] = cos;
+		return this;
+	}
+
+	/**
+	 * @param teta angle in radians
+	 * @return this = rotation by teta radians on the z axis
+	 */
+	public Matrix3D toRotationZ(double teta) {
+		double cos = Math.cos(teta), sin = Math.sin(teta);
+		toId();
+		cell[0][0] = cos;
+		cell[0][1] = sin;
+		cell[1][0] = -sin;
+		cell[1][1] = cos;
+		return this;
+	}
+
+	/**
+	 * @param x translation units on the x axis
+	 * @param y translation units on the y axis
+	 * @param z translation units on the z axis
+	 * @return a translated copy of this matrix.
+	 */
+	static public Matrix3D translation(double x, double y, double z) {
+		return new Matrix3D().toTranslation(x, y, z);
+	}
+
+	/**
+	 * @param x scale factor on the x axis 
+	 * @param y scale factor on the y axis 
+	 * @param z scale factor on the z axis 
+	 * @return a scaled copy of this matrix.
+	 */
+	static public Matrix3D scale(double x, double y, double z) {
+		return new Matrix3D().toScale(x, y, z);
+	}
+
+	/**
+	 * @param teta angle in radians
+	 * @return a copy of this matrix rotated by teta radians on the x axis
+	 */
+	static public Matrix3D rotationX(double teta) {
+		return new Matrix3D().toRotationX(teta);
+	}
+
+	/**
+	 * @param teta angle in radians
+	 * @return a copy of this matrix rotated by teta radians on the y axis
+	 */
+	static public Matrix3D rotationY(double teta) {
+		return new Matrix3D().toRotationY(teta);
+	}
+
+	/**
+	 * @param teta angle in radians
+	 * @return a copy of this matrix rotated by teta radians on the z axis
+	 */
+	static public Matrix3D rotationZ(double teta) {
+		return new Matrix3D().toRotationZ(teta);
+	}
+
+}
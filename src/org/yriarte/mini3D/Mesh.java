@@ -1,214 +1,879 @@
-/*
- * Copyright (c) 2008, Luc Yriarte
- * All rights reserved.
- * 
- * @file Mesh.java
- * @author Luc Yriarte
- * 
- * License: BSD <http://www.opensource.org/licenses/bsd-license.php>
- * 
- * Redistribution and use in source and binary forms, with or without modification, are permitted 
- * provided that the following conditions are met:
- * 
- *     * Redistributions of source code must retain the above copyright notice, this 
- * list of conditions and the following disclaimer.
- *     * Redistributions in binary form must reproduce the above copyright notice, this 
- * list of conditions and the following disclaimer in the documentation and/or other materials 
- * provided with the distribution.
- *     * The name of Luc Yriarte may not be used to endorse or promote products derived 
- * from this software without specific prior written permission.
- * 
- * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR 
- * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND 
- * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. 
- * IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
- * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
- * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY 
- * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
- * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
- * 
- */
-
-package org.yriarte.mini3D;
-
-import org.yriarte.math.Matrix;
-
-/**
- * @brief Mesh wireframe model. Edges are represented by the indexes of both ends
- * in the vertex table.
- */
-public class Mesh {
-	protected int nVertex, nEdge;
-	/** vertex table */
-	protected Vector3D[] vertex;
-	/** an edge is a pair of indexes in the vertex table */
-	protected int[][] edge;
-	/** wireframe screen coordinates */
-	protected int focal, screenX, screenY;
-	/** vertices xy translated in screen coordinates */
-	protected int scrX[], scrY[];
-	/** wireframe lines as an array of edges quintuplets <x1 y1 x2 y2 (z1+z2)/2> */
-	protected int lines[][];
-
-	public Mesh() {
-		nVertex = nEdge = 0;
-		vertex = null;
-		edge = null;
-		lines = null;
-		scrX = scrY = null;
-	}
-
-	public Mesh(int nV, int nE, Vector3D[] v, int[][] e) {
-		nVertex = nV;
-		nEdge = nE;
-		vertex = v;
-		edge = e;
-		scrX = new int[nVertex];
-		scrY = new int[nVertex];
-		lines = new int[nEdge][5];		
-	}
-
-	/**
-	 * @param aMesh references the mesh vertices and edges
-	 */
-	public Mesh(Mesh aMesh) {
-		this(aMesh.nVertex, aMesh.nEdge, aMesh.vertex, aMesh.edge);
-	}
-
-
-	
-	public int getNVertex() {
-		return nVertex;
-	}
-
-	public int getNEdge() {
-		return nEdge;
-	}
-
-	public Vector3D[] getVertex() {
-		return vertex;
-	}
-
-	public int[][] getLines() {
-		return lines;
-	}
-
-	/**
-	 * Creates a new mesh with the transformed vertices and this meshes
-	 * edges.
-	 */
-	public Mesh transform(Matrix trans) {
-		if (nVertex == 0)
-			return this;
-		int i;
-		Vector3D[] transVertex = new Vector3D[nVertex];
-		for (i = 0; i < nVertex; i++) {
-			transVertex[i] = Vector3D.MatrixAsVector3D(trans.mul(vertex[i]));
-		}
-		return new Mesh(nVertex, nEdge, transVertex, edge);
-	}
-
-	/**
-	 * Transform this mesh
-	 */
-	public Mesh transformThis(Matrix trans) {
-		if (nVertex == 0)
-			return this;
-		int i;
-		for (i = 0; i < nVertex; i++) {
-			vertex[i].transformThis(trans);
-		}
-		return this;
-	}
-
-	/**
-	 * Converts the XYZ coordinates of each vertex in flat xy coordinates
-	 *  
-	 * @param foc: focal focal distance
-	 * @param sX: screenX screen dimension x
-	 * @param sY: screenY screen dimension y
-	 * @return this
-	 */
-	public Mesh updateWireframe(int foc, int sX, int sY) {
-		if (nEdge == 0)
-			return null;
-		int i, x0, y0;
-		double z;
-		focal = foc;
-		screenX = sX;
-		screenY = sY;
-		// screen center
-		x0 = screenX / 2;
-		y0 = screenY / 2;
-		// Translate vertices to screen coordinates
-		for (i = 0; i < nVertex; i++) {
-			z = vertex[i].getCell()[2][0] > 0 ? vertex[i].getCell()[2][0] : 0.001;
-			scrX[i] = (int) (x0 + vertex[i].getCell()[0][0] * focal / z);
-			scrY[i] = (int) (y0 - vertex[i].getCell()[1][0] * focal / z);
-		}
-		// Create lines from mesh edges
-		for (i = 0; i < nEdge; i++) {
-			lines[i][0] = scrX[edge[i][0]];
-			lines[i][1] = scrY[edge[i][0]];
-			lines[i][2] = scrX[edge[i][1]];
-			lines[i][3] = scrY[edge[i][1]];
-			// z is the middle of this edge's ends on the z-axis
-			lines[i][4] = ((int) (vertex[edge[i][0]].getCell()[2][0] + vertex[edge[i][1]].getCell()[2][0])) >> 1;
-		}
-		return this;
-	}
-	
-	public Mesh setWireframe(Mesh aMesh) {
-		this.screenX = aMesh.screenX;
-		this.screenY = aMesh.screenY;
-		this.focal = aMesh.focal;
-		this.scrX = aMesh.scrX;
-		this.scrY = aMesh.scrY;
-		this.lines = aMesh.lines;
-		return this;
-	}
-	
-	/**
-	 * Selects the first vertex where xy coordinates in the mesh
-	 * wireframe are closer than r to xy parameters.
-	 * @param x
-	 * @param y
-	 * @param r
-	 * @return index of the selected vertex, -1 if none
-	 */
-	public int selectVertex(int x, int y, int r) {
-		int xmr,xpr,ymr,ypr;
-		int i;
-		i=-1;
-		xmr=x-r;xpr=x+r;ymr=y-r;ypr=y+r;
-		for (i = 0; i < nVertex; i++) {
-			if (scrX[i] >= xmr && scrX[i] <= xpr && scrY[i] >= ymr && scrY[i] <= ypr)
-				break;
-		}
-		if (i==nVertex)
-			i=-1;
-// System.out.println("select vertex [" + xmr + ".." + xpr + "][" + ymr + ".." + ypr + "] :" + i);		
-		return i;
-	}
-	
-
-	/**
-	 * Calculates the mesh's bounding box
-	 * @return [[xmin,xmax],[ymin,ymax],[zmin,zmax]]
-	 */
-	public Matrix calculateBounds() {
-		Matrix mxXyYzZ = new Matrix(3,2);
-		for (int j=0; j<3; j++) {
-			mxXyYzZ.getCell()[j][0]=Integer.MAX_VALUE;
-			mxXyYzZ.getCell()[j][1]=Integer.MIN_VALUE;
-		}
-		for (int i=0; i<nVertex; i++) {
-			for (int j=0; j<3; j++) {
-				mxXyYzZ.getCell()[j][0]=Math.min(mxXyYzZ.getCell()[j][0],vertex[i].getCell()[j][0]);
-				mxXyYzZ.getCell()[j][1]=Math.max(mxXyYzZ.getCell()[j][1],vertex[i].getCell()[j][0]);
-			}
-		}
-		return mxXyYzZ;
-	}
-	
-}
+/*
+ * Copyright (c) 2008, Luc Yriarte
+ * All rights reserved.
+ * 
+ * @file Mesh.java
+ * @author Luc Yriarte
+ * 
+ * License: BSD <http://www.opensource.org/licenses/bsd-license.php>
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted 
+ * provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright notice, this 
+ * list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright notice, this 
+ * list of conditions and the following disclaimer in the documentation and/or other materials 
+ * provided with the distribution.
+ *     * The name of Luc Yriarte may not be used to endorse or promote products derived 
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR 
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND 
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. 
+ * IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY 
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ * 
+ */
+
+package org.yriarte.mini3D;
+
+import java.util.concurrent.RecursiveAction;
+
+import org.yriarte.math.Matrix;
+
+/**
+ * @brief Mesh wireframe model. Edges are represented by the indexes of both ends
+ * in the vertex table.
+ * 
+ * Vertices are stored either as a Vector3D table, or as contiguous coordinate
+ * arrays in double or float precision. getVertex() gives Vector3D views on
+ * the coordinate arrays.
+ * 
+ * A mesh can also share the coordinate arrays and edges of a template mesh,
+ * its vertices being the template ones transformed by a local transformation.
+ * Transforming such a mesh only changes the local transformation, changing 
+ * a vertex copies the template vertices first.
+ */
+public class Mesh {
+	/** Vertex storage: Vector3D table, double or float coordinate arrays */
+	public static final int STORAGE_VECTOR = 0;
+	public static final int STORAGE_DOUBLE = 1;
+	public static final int STORAGE_FLOAT = 2;
+	/** Storage of the meshes created from a Vector3D table */
+	public static int STORAGE_DEFAULT = STORAGE_VECTOR;
+	/** Near clipping plane of lines and facets, in eye coordinates */
+	public static double Z_NEAR = 1;
+	/** Vertices or lines per task of transformProjectParallel */
+	public static int PARALLEL_CHUNK = 8192;
+
+	protected int nVertex, nEdge;
+	protected int storage = STORAGE_VECTOR;
+	/** vertex table, or views on the coordinate arrays */
+	protected Vector3D[] vertex;
+	/** STORAGE_DOUBLE vertex coordinates, from the first one */
+	protected double xs[], ys[], zs[];
+	protected int first = 0;
+	/** STORAGE_FLOAT vertex coordinates */
+	protected float xf[], yf[], zf[];
+	/** an edge is a pair of indexes in the vertex table */
+	protected int[][] edge;
+	/** template vertices transformation, null if the vertices are this mesh's own */
+	protected Affine3D local = null;
+	/** local combined with the transformation of the last transformProject */
+	private Affine3D folded = null;
+	/** wireframe screen coordinates */
+	protected int focal, screenX, screenY;
+	/** vertices xy translated in screen coordinates */
+	protected int scrX[], scrY[];
+	/** wireframe lines as an array of edges quintuplets <x1 y1 x2 y2 (z1+z2)/2> */
+	protected int lines[][];
+	/** transformed vertices, kept from one frame to the next */
+	protected double tx[], ty[], tz[];
+	/** incremented on every vertex change */
+	protected int modCount = 0;
+	/** bounding sphere {x, y, z, r} and the modCount it was computed for */
+	private double boundingSphere[] = null;
+	private int boundingModCount;
+
+	public Mesh() {
+		nVertex = nEdge = 0;
+		vertex = null;
+		edge = null;
+		lines = null;
+		scrX = scrY = null;
+	}
+
+	public Mesh(int nV, int nE, Vector3D[] v, int[][] e) {
+		nVertex = nV;
+		nEdge = nE;
+		vertex = v;
+		edge = e;
+		scrX = new int[nVertex];
+		scrY = new int[nVertex];
+		lines = new int[nEdge][5];		
+		if (STORAGE_DEFAULT != STORAGE_VECTOR)
+			setStorage(STORAGE_DEFAULT);
+	}
+
+	/**
+	 * @brief STORAGE_DOUBLE mesh referencing the coordinate arrays
+	 */
+	public Mesh(int nV, int nE, double[] x, double[] y, double[] z, int[][] e) {
+		this(nV, nE, x, y, z, 0, e);
+	}
+
+	/**
+	 * @brief STORAGE_DOUBLE mesh referencing the vertices [first, first + nV[ 
+	 * of the coordinate arrays, the edges indexing them from 0
+	 */
+	public Mesh(int nV, int nE, double[] x, double[] y, double[] z, int first, int[][] e) {
+		nVertex = nV;
+		nEdge = nE;
+		storage = STORAGE_DOUBLE;
+		xs = x;
+		ys = y;
+		zs = z;
+		this.first = first;
+		edge = e;
+		scrX = new int[nVertex];
+		scrY = new int[nVertex];
+		lines = new int[nEdge][5];		
+	}
+
+	/**
+	 * @brief STORAGE_FLOAT mesh referencing the coordinate arrays
+	 */
+	public Mesh(int nV, int nE, float[] x, float[] y, float[] z, int[][] e) {
+		nVertex = nV;
+		nEdge = nE;
+		storage = STORAGE_FLOAT;
+		xf = x;
+		yf = y;
+		zf = z;
+		edge = e;
+		scrX = new int[nVertex];
+		scrY = new int[nVertex];
+		lines = new int[nEdge][5];		
+	}
+
+	/**
+	 * @param aMesh references the mesh vertices and edges
+	 */
+	public Mesh(Mesh aMesh) {
+		nVertex = aMesh.nVertex;
+		nEdge = aMesh.nEdge;
+		storage = aMesh.storage;
+		xs = aMesh.xs; ys = aMesh.ys; zs = aMesh.zs;
+		first = aMesh.first;
+		xf = aMesh.xf; yf = aMesh.yf; zf = aMesh.zf;
+		vertex = storage == STORAGE_VECTOR ? aMesh.vertex : null;
+		edge = aMesh.edge;
+		if (aMesh.local != null)
+			local = new Affine3D(aMesh.local);
+		scrX = new int[nVertex];
+		scrY = new int[nVertex];
+		lines = new int[nEdge][5];		
+	}
+
+	/**
+	 * @brief Mesh sharing the coordinate arrays and edges of template, 
+	 * which must not be changed afterwards. The screen buffers are 
+	 * allocated by the first projection.
+	 * @param template STORAGE_DOUBLE or STORAGE_FLOAT mesh
+	 * @param local transformation of the template vertices
+	 */
+	public Mesh(Mesh template, Affine3D local) {
+		nVertex = template.nVertex;
+		nEdge = template.nEdge;
+		storage = template.storage;
+		xs = template.xs; ys = template.ys; zs = template.zs;
+		first = template.first;
+		xf = template.xf; yf = template.yf; zf = template.zf;
+		edge = template.edge;
+		this.local = new Affine3D(local);
+		if (template.local != null)
+			this.local.mulThis(template.local);
+	}
+
+	/**
+	 * @brief screen buffers of a mesh made from a template
+	 */
+	private void allocateBuffers() {
+		if (scrX != null)
+			return;
+		scrX = new int[nVertex];
+		scrY = new int[nVertex];
+		lines = new int[nEdge][5];
+	}
+
+	/**
+	 * @brief copies the template vertices transformed by local, 
+	 * in the same storage
+	 */
+	private void detach() {
+		int i;
+		double x, y, z;
+		if (local == null)
+			return;
+		if (storage == STORAGE_FLOAT) {
+			float fx[] = new float[nVertex], fy[] = new float[nVertex], fz[] = new float[nVertex];
+			for (i = 0; i < nVertex; i++) {
+				x = xf[i]; y = yf[i]; z = zf[i];
+				fx[i] = (float) local.transformX(x, y, z);
+				fy[i] = (float) local.transformY(x, y, z);
+				fz[i] = (float) local.transformZ(x, y, z);
+			}
+			xf = fx; yf = fy; zf = fz;
+		} else {
+			double dx[] = new double[nVertex], dy[] = new double[nVertex], dz[] = new double[nVertex];
+			for (i = 0; i < nVertex; i++) {
+				x = xs[first + i]; y = ys[first + i]; z = zs[first + i];
+				dx[i] = local.transformX(x, y, z);
+				dy[i] = local.transformY(x, y, z);
+				dz[i] = local.transformZ(x, y, z);
+			}
+			xs = dx; ys = dy; zs = dz;
+			first = 0;
+		}
+		local = null;
+	}
+
+	/**
+	 * @return true if the vertices are a template's, transformed by a local transformation
+	 */
+	public boolean isShared() {
+		return local != null;
+	}
+
+	public int getNVertex() {
+		return nVertex;
+	}
+
+	public int getStorage() {
+		return storage;
+	}
+
+	/**
+	 * @brief Converts the vertices to another storage.
+	 * Views previously returned by getVertex() are left detached.
+	 * @param s STORAGE_VECTOR, STORAGE_DOUBLE or STORAGE_FLOAT
+	 * @return this
+	 */
+	public Mesh setStorage(int s) {
+		if (s == storage)
+			return this;
+		int i;
+		double x[] = new double[nVertex], y[] = new double[nVertex], z[] = new double[nVertex];
+		for (i = 0; i < nVertex; i++) {
+			x[i] = getX(i);
+			y[i] = getY(i);
+			z[i] = getZ(i);
+		}
+		vertex = null;
+		local = null;
+		xs = ys = zs = null;
+		xf = yf = zf = null;
+		first = 0;
+		storage = s;
+		modCount++;
+		if (s == STORAGE_DOUBLE) {
+			xs = x;
+			ys = y;
+			zs = z;
+		} else if (s == STORAGE_FLOAT) {
+			xf = new float[nVertex];
+			yf = new float[nVertex];
+			zf = new float[nVertex];
+			for (i = 0; i < nVertex; i++) {
+				xf[i] = (float) x[i];
+				yf[i] = (float) y[i];
+				zf[i] = (float) z[i];
+			}
+		} else {
+			vertex = new Vector3D[nVertex];
+			for (i = 0; i < nVertex; i++)
+				vertex[i] = new Vector3D(x[i], y[i], z[i]);
+		}
+		return this;
+	}
+
+	public double getX(int i) {
+		if (local != null)
+			return local.transformX(storedX(i), storedY(i), storedZ(i));
+		return storedX(i);
+	}
+
+	public double getY(int i) {
+		if (local != null)
+			return local.transformY(storedX(i), storedY(i), storedZ(i));
+		return storedY(i);
+	}
+
+	public double getZ(int i) {
+		if (local != null)
+			return local.transformZ(storedX(i), storedY(i), storedZ(i));
+		return storedZ(i);
+	}
+
+	private double storedX(int i) {
+		if (storage == STORAGE_DOUBLE)
+			return xs[first + i];
+		if (storage == STORAGE_FLOAT)
+			return xf[i];
+		return vertex[i].getX();
+	}
+
+	private double storedY(int i) {
+		if (storage == STORAGE_DOUBLE)
+			return ys[first + i];
+		if (storage == STORAGE_FLOAT)
+			return yf[i];
+		return vertex[i].getY();
+	}
+
+	private double storedZ(int i) {
+		if (storage == STORAGE_DOUBLE)
+			return zs[first + i];
+		if (storage == STORAGE_FLOAT)
+			return zf[i];
+		return vertex[i].getZ();
+	}
+
+	/**
+	 * @brief sets vertex i coordinates whatever the storage
+	 */
+	public void setVertex(int i, double x, double y, double z) {
+		modCount++;
+		detach();
+		if (storage == STORAGE_DOUBLE) {
+			xs[first + i] = x;
+			ys[first + i] = y;
+			zs[first + i] = z;
+		} else if (storage == STORAGE_FLOAT) {
+			xf[i] = (float) x;
+			yf[i] = (float) y;
+			zf[i] = (float) z;
+		} else {
+			vertex[i].setX(x);
+			vertex[i].setY(y);
+			vertex[i].setZ(z);
+			return;
+		}
+		if (vertex != null)
+			((VertexView) vertex[i]).sync();
+	}
+
+	/**
+	 * @brief the views returned by getVertex() take the current coordinates
+	 */
+	private void syncViews() {
+		int i;
+		if (storage == STORAGE_VECTOR || vertex == null)
+			return;
+		for (i = 0; i < nVertex; i++)
+			((VertexView) vertex[i]).sync();
+	}
+
+	/**
+	 * @return a counter changed by every vertex update through this mesh, 
+	 * tells whether the transformed vertices are still valid
+	 */
+	public int getModCount() {
+		return modCount;
+	}
+
+	/**
+	 * @brief to call after changing the Vector3D table returned by getVertex()
+	 */
+	public void invalidate() {
+		modCount++;
+	}
+
+	/**
+	 * @brief Sphere centered on the vertices bounding box, 
+	 * cached until the vertices change.
+	 * @return {x, y, z, r}, r < 0 if there are no vertices
+	 */
+	public double[] getBoundingSphere() {
+		int i;
+		double x, y, z, d, xMin, xMax, yMin, yMax, zMin, zMax, r2 = 0;
+		if (boundingSphere != null && boundingModCount == modCount)
+			return boundingSphere;
+		if (boundingSphere == null)
+			boundingSphere = new double[4];
+		boundingModCount = modCount;
+		if (nVertex == 0) {
+			boundingSphere[0] = boundingSphere[1] = boundingSphere[2] = 0;
+			boundingSphere[3] = -1;
+			return boundingSphere;
+		}
+		xMin = xMax = getX(0);
+		yMin = yMax = getY(0);
+		zMin = zMax = getZ(0);
+		for (i = 1; i < nVertex; i++) {
+			x = getX(i); y = getY(i); z = getZ(i);
+			if (x < xMin) xMin = x; else if (x > xMax) xMax = x;
+			if (y < yMin) yMin = y; else if (y > yMax) yMax = y;
+			if (z < zMin) zMin = z; else if (z > zMax) zMax = z;
+		}
+		x = (xMin + xMax) / 2;
+		y = (yMin + yMax) / 2;
+		z = (zMin + zMax) / 2;
+		for (i = 0; i < nVertex; i++) {
+			d = (getX(i) - x) * (getX(i) - x) + (getY(i) - y) * (getY(i) - y) 
+				+ (getZ(i) - z) * (getZ(i) - z);
+			if (d > r2)
+				r2 = d;
+		}
+		boundingSphere[0] = x;
+		boundingSphere[1] = y;
+		boundingSphere[2] = z;
+		boundingSphere[3] = Math.sqrt(r2);
+		return boundingSphere;
+	}
+
+	public int getNEdge() {
+		return nEdge;
+	}
+
+	/**
+	 * @return the vertex table, or views on the coordinate arrays 
+	 */
+	public Vector3D[] getVertex() {
+		if (vertex == null && nVertex > 0) {
+			vertex = new Vector3D[nVertex];
+			for (int i = 0; i < nVertex; i++)
+				vertex[i] = new VertexView(i);
+		}
+		return vertex;
+	}
+
+	public int[][] getLines() {
+		return lines;
+	}
+
+	/**
+	 * Creates a new mesh with the transformed vertices and this meshes
+	 * edges.
+	 */
+	public Mesh transform(Matrix trans) {
+		if (nVertex == 0)
+			return this;
+		return transform(new Affine3D(trans));
+	}
+
+	/**
+	 * Creates a new mesh with the transformed vertices and this meshes
+	 * edges.
+	 */
+	public Mesh transform(Affine3D trans) {
+		if (nVertex == 0)
+			return this;
+		int i;
+		double x, y, z, m[];
+		double tx[] = new double[nVertex], ty[] = new double[nVertex], tz[] = new double[nVertex];
+		if (local != null)
+			trans = Affine3D.mulInto(trans, local, new Affine3D());
+		m = trans.getCell();
+		for (i = 0; i < nVertex; i++) {
+			if (storage == STORAGE_DOUBLE) {
+				x = xs[first + i]; y = ys[first + i]; z = zs[first + i];
+			} else if (storage == STORAGE_FLOAT) {
+				x = xf[i]; y = yf[i]; z = zf[i];
+			} else {
+				x = vertex[i].getX(); y = vertex[i].getY(); z = vertex[i].getZ();
+			}
+			tx[i] = m[0] * x + m[1] * y + m[2] * z + m[3];
+			ty[i] = m[4] * x + m[5] * y + m[6] * z + m[7];
+			tz[i] = m[8] * x + m[9] * y + m[10] * z + m[11];
+		}
+		return new Mesh(nVertex, nEdge, tx, ty, tz, edge);
+	}
+
+	/**
+	 * Transform this mesh
+	 */
+	public Mesh transformThis(Matrix trans) {
+		if (nVertex == 0)
+			return this;
+		int i;
+		modCount++;
+		if (local != null) {
+			local.preMulThis(new Affine3D(trans));
+			syncViews();
+			return this;
+		}
+		if (storage == STORAGE_VECTOR) {
+			for (i = 0; i < nVertex; i++) {
+				vertex[i].transformThis(trans);
+			}
+			return this;
+		}
+		Affine3D a = new Affine3D(trans);
+		double x, y, z;
+		for (i = 0; i < nVertex; i++) {
+			x = getX(i);
+			y = getY(i);
+			z = getZ(i);
+			setVertex(i, a.transformX(x, y, z), a.transformY(x, y, z), a.transformZ(x, y, z));
+		}
+		return this;
+	}
+
+	/**
+	 * Converts the XYZ coordinates of each vertex in flat xy coordinates
+	 *  
+	 * @param foc: focal focal distance
+	 * @param sX: screenX screen dimension x
+	 * @param sY: screenY screen dimension y
+	 * @return this
+	 */
+	public Mesh updateWireframe(int foc, int sX, int sY) {
+		if (nEdge == 0)
+			return null;
+		int i, x0, y0;
+		double z;
+		allocateBuffers();
+		focal = foc;
+		screenX = sX;
+		screenY = sY;
+		// screen center
+		x0 = screenX / 2;
+		y0 = screenY / 2;
+		// Translate vertices to screen coordinates
+		for (i = 0; i < nVertex; i++) {
+			z = getZ(i) > 0 ? getZ(i) : 0.001;
+			scrX[i] = (int) (x0 + getX(i) * focal / z);
+			scrY[i] = (int) (y0 - getY(i) * focal / z);
+		}
+		// Create lines from mesh edges
+		for (i = 0; i < nEdge; i++) {
+			lines[i][0] = scrX[edge[i][0]];
+			lines[i][1] = scrY[edge[i][0]];
+			lines[i][2] = scrX[edge[i][1]];
+			lines[i][3] = scrY[edge[i][1]];
+			// z is the middle of this edge's ends on the z-axis
+			lines[i][4] = ((int) (getZ(edge[i][0]) + getZ(edge[i][1]))) >> 1;
+		}
+		return this;
+	}
+	
+	/**
+	 * @brief Transforms the vertices into the mesh's transformed vertex buffers,
+	 * then translates them in screen coordinates and lines. 
+	 * Buffers are reused, nothing is allocated once the first frame is done.
+	 *  
+	 * @param trans transformation from the mesh to the eye coordinates
+	 * @param foc: focal focal distance
+	 * @param sX: screenX screen dimension x
+	 * @param sY: screenY screen dimension y
+	 * @return this
+	 */
+	public Mesh transformProject(Affine3D trans, int foc, int sX, int sY) {
+		if (nEdge == 0)
+			return this;
+		allocateBuffers();
+		transformVertices(vertexTransform(trans), 0, nVertex);
+		projectVertices(foc, sX, sY, 0, nVertex);
+		projectLines(0, nEdge);
+		return this;
+	}
+
+	/**
+	 * @brief transformProject splitting vertices and lines in ranges 
+	 * processed as fork/join tasks, for large meshes. 
+	 * Can be called from a ForkJoinPool task or from any thread.
+	 */
+	public Mesh transformProjectParallel(Affine3D trans, int foc, int sX, int sY) {
+		if (nVertex < 2 * PARALLEL_CHUNK)
+			return transformProject(trans, foc, sX, sY);
+		allocateBuffers();
+		trans = vertexTransform(trans);
+		if (tx == null || tx.length < nVertex) {
+			tx = new double[nVertex];
+			ty = new double[nVertex];
+			tz = new double[nVertex];
+		}
+		focal = foc;
+		screenX = sX;
+		screenY = sY;
+		// lines need every vertex projected
+		new RangeTask(trans, false, 0, nVertex).invoke();
+		new RangeTask(trans, true, 0, nEdge).invoke();
+		return this;
+	}
+
+	/**
+	 * @return trans applied to the stored vertices: trans, or trans * local
+	 */
+	private Affine3D vertexTransform(Affine3D trans) {
+		if (local == null)
+			return trans;
+		if (folded == null)
+			folded = new Affine3D();
+		return Affine3D.mulInto(trans, local, folded);
+	}
+
+	/**
+	 * @brief transformed vertex buffers [from, to[ = trans * stored vertices
+	 */
+	protected void transformVertices(Affine3D trans, int from, int to) {
+		int i;
+		double x, y, z, m[] = trans.getCell();
+		if (tx == null || tx.length < nVertex) {
+			tx = new double[nVertex];
+			ty = new double[nVertex];
+			tz = new double[nVertex];
+		}
+		for (i = from; i < to; i++) {
+			if (storage == STORAGE_DOUBLE) {
+				x = xs[first + i]; y = ys[first + i]; z = zs[first + i];
+			} else if (storage == STORAGE_FLOAT) {
+				x = xf[i]; y = yf[i]; z = zf[i];
+			} else {
+				x = vertex[i].getX(); y = vertex[i].getY(); z = vertex[i].getZ();
+			}
+			tx[i] = m[0] * x + m[1] * y + m[2] * z + m[3];
+			ty[i] = m[4] * x + m[5] * y + m[6] * z + m[7];
+			tz[i] = m[8] * x + m[9] * y + m[10] * z + m[11];
+		}
+	}
+
+	/**
+	 * @brief screen coordinates of the transformed vertices [from, to[
+	 */
+	protected void projectVertices(int foc, int sX, int sY, int from, int to) {
+		int i, x0, y0;
+		double z;
+		focal = foc;
+		screenX = sX;
+		screenY = sY;
+		// screen center
+		x0 = screenX / 2;
+		y0 = screenY / 2;
+		for (i = from; i < to; i++) {
+			z = tz[i] > 0 ? tz[i] : 0.001;
+			scrX[i] = (int) (x0 + tx[i] * focal / z);
+			scrY[i] = (int) (y0 - ty[i] * focal / z);
+		}
+	}
+
+	/**
+	 * @brief lines [from, to[ from the projected vertices, clipped to the 
+	 * near plane and to the screen, z being negative if nothing is left.
+	 */
+	protected void projectLines(int from, int to) {
+		int i, a, b;
+		PolygonClipper clipper = Object3D.CLIPPER.get();
+		for (i = from; i < to; i++) {
+			a = edge[i][0];
+			b = edge[i][1];
+			// z is the middle of this edge's ends on the z-axis
+			lines[i][4] = ((int) (tz[a] + tz[b])) >> 1;
+			if (tz[a] >= Z_NEAR && tz[b] >= Z_NEAR && onScreen(a) && onScreen(b)) {
+				lines[i][0] = scrX[a];
+				lines[i][1] = scrY[a];
+				lines[i][2] = scrX[b];
+				lines[i][3] = scrY[b];
+			} else if (clipper.clipLine(tx[a], ty[a], tz[a], tx[b], ty[b], tz[b], 
+					Z_NEAR, focal, screenX, screenY, lines[i])) {
+				lines[i][4] = Math.max(lines[i][4], 0);
+			} else {
+				lines[i][4] = -1;
+			}
+		}
+	}
+
+	/**
+	 * @return true if the projected vertex i is on the screen
+	 */
+	protected boolean onScreen(int i) {
+		return scrX[i] >= 0 && scrX[i] <= screenX && scrY[i] >= 0 && scrY[i] <= screenY;
+	}
+
+	/**
+	 * @brief vertices or lines [from, to[ of a parallel transformProject
+	 */
+	private class RangeTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private Affine3D trans;
+		private boolean lineRange;
+		private int from, to;
+
+		public RangeTask(Affine3D trans, boolean lineRange, int from, int to) {
+			this.trans = trans;
+			this.lineRange = lineRange;
+			this.from = from;
+			this.to = to;
+		}
+
+		protected void compute() {
+			if (to - from > PARALLEL_CHUNK) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new RangeTask(trans, lineRange, from, mid), 
+						new RangeTask(trans, lineRange, mid, to));
+			} else if (lineRange) {
+				projectLines(from, to);
+			} else {
+				transformVertices(trans, from, to);
+				projectVertices(focal, screenX, screenY, from, to);
+			}
+		}
+
+	}
+
+	/**
+	 * @return x of the vertices transformed by the last transformProject
+	 */
+	public double[] getTransformedX() {
+		return tx;
+	}
+
+	/**
+	 * @return y of the vertices transformed by the last transformProject
+	 */
+	public double[] getTransformedY() {
+		return ty;
+	}
+
+	/**
+	 * @return z of the vertices transformed by the last transformProject
+	 */
+	public double[] getTransformedZ() {
+		return tz;
+	}
+
+	public int[][] getEdge() {
+		return edge;
+	}
+
+	public int[] getScrX() {
+		return scrX;
+	}
+
+	public int[] getScrY() {
+		return scrY;
+	}
+
+	public Mesh setWireframe(Mesh aMesh) {
+		this.screenX = aMesh.screenX;
+		this.screenY = aMesh.screenY;
+		this.focal = aMesh.focal;
+		this.scrX = aMesh.scrX;
+		this.scrY = aMesh.scrY;
+		this.lines = aMesh.lines;
+		return this;
+	}
+	
+	/**
+	 * Selects the first vertex where xy coordinates in the mesh
+	 * wireframe are closer than r to xy parameters.
+	 * @param x
+	 * @param y
+	 * @param r
+	 * @return index of the selected vertex, -1 if none
+	 */
+	public int selectVertex(int x, int y, int r) {
+		int xmr,xpr,ymr,ypr;
+		int i;
+		i=-1;
+		if (scrX == null)
+			return i;
+		xmr=x-r;xpr=x+r;ymr=y-r;ypr=y+r;
+		for (i = 0; i < nVertex; i++) {
+			if (scrX[i] >= xmr && scrX[i] <= xpr && scrY[i] >= ymr && scrY[i] <= ypr)
+				break;
+		}
+		if (i==nVertex)
+			i=-1;
+// System.out.println("select vertex [" + xmr + ".." + xpr + "][" + ymr + ".." + ypr + "] :" + i);		
+		return i;
+	}
+	
+
+	/**
+	 * Calculates the mesh's bounding box
+	 * @return [[xmin,xmax],[ymin,ymax],[zmin,zmax]]
+	 */
+	public Matrix calculateBounds() {
+		Matrix mxXyYzZ = new Matrix(3,2);
+		for (int j=0; j<3; j++) {
+			mxXyYzZ.getCell()[j][0]=Integer.MAX_VALUE;
+			mxXyYzZ.getCell()[j][1]=Integer.MIN_VALUE;
+		}
+		double c[][] = mxXyYzZ.getCell();
+		double v;
+		for (int i=0; i<nVertex; i++) {
+			v = getX(i);
+			c[0][0]=Math.min(c[0][0],v);
+			c[0][1]=Math.max(c[0][1],v);
+			v = getY(i);
+			c[1][0]=Math.min(c[1][0],v);
+			c[1][1]=Math.max(c[1][1],v);
+			v = getZ(i);
+			c[2][0]=Math.min(c[2][0],v);
+			c[2][1]=Math.max(c[2][1],v);
+		}
+		return mxXyYzZ;
+	}
+	
+	/**
+	 * @brief Vector3D view on a vertex of the coordinate arrays.
+	 * Accessors and transformThis read and write the mesh, the cells 
+	 * keep a copy of the current coordinates for the Matrix operations:
+	 * the mesh writes them through on every vertex change.
+	 */
+	public class VertexView extends Vector3D {
+
+		private int index;
+
+		public VertexView(int i) {
+			super();
+			index = i;
+			sync();
+		}
+
+		/**
+		 * @brief cells = the vertex coordinates in the mesh
+		 */
+		void sync() {
+			cell[0][0] = Mesh.this.getX(index);
+			cell[1][0] = Mesh.this.getY(index);
+			cell[2][0] = Mesh.this.getZ(index);
+		}
+
+		public double[][] getCell() {
+			sync();
+			return cell;
+		}
+
+		public Vector3D transformThis(Matrix aMatrix) {
+			sync();
+			super.transformThis(aMatrix);
+			setVertex(index, cell[0][0], cell[1][0], cell[2][0]);
+			return this;
+		}
+
+		public double getX() {
+			return Mesh.this.getX(index);
+		}
+		
+		public double getY() {
+			return Mesh.this.getY(index);
+		}
+		
+		public double getZ() {
+			return Mesh.this.getZ(index);
+		}
+		
+		public void setX(double aDouble) {
+			setVertex(index, aDouble, getY(), getZ());
+		}
+		
+		public void setY(double aDouble) {
+			setVertex(index, getX(), aDouble, getZ());
+		}
+		
+		public void setZ(double aDouble) {
+			setVertex(index, getX(), getY(), aDouble);
+		}
+
+	}
+	
+}
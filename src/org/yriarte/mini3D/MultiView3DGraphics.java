@@ -0,0 +1,343 @@
+/* Copyright (c) 2010, Luc Yriarte
+ * All rights reserved.
+ * 
+ * @file MultiView3DGraphics.java
+ * @author Luc Yriarte
+ * 
+ * License: BSD <http://www.opensource.org/licenses/bsd-license.php>
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted 
+ * provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright notice, this 
+ * list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright notice, this 
+ * list of conditions and the following disclaimer in the documentation and/or other materials 
+ * provided with the distribution.
+ *     * The name of Luc Yriarte may not be used to endorse or promote products derived 
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR 
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND 
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. 
+ * IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY 
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ * 
+ */
+
+package org.yriarte.mini3D;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.concurrent.RecursiveAction;
+
+import org.yriarte.graphics.Image;
+import org.yriarte.mini3D.Object3D.PolygonEdgeIndexes;
+
+/**
+ * @brief Several views of one model, each with its camera and image.
+ *
+ * The model is compiled into a CompiledScene, whose update transforms the
+ * meshes to the coordinates of the toplevel object once per frame, for the
+ * objects whose transformation to it or whose vertices changed. Each view 
+ * then only projects, culls, sorts and paints copies of the objects whose 
+ * meshes reference these coordinates: the Buffered3DGraphics of a view 
+ * updates a toplevel object of its own, with the model's transformation, 
+ * whose children stand for the model objects with an identity 
+ * transformation. Moving the model or the cameras transforms no 
+ * vertex twice. Views can be rendered in parallel, sharing only the 
+ * coordinates they read.
+ * Levels of detail are not selected for the views: the model objects
+ * keep their current meshes.
+ */
+public class MultiView3DGraphics {
+
+	private Object3D model;
+	/** graphics of each view, and their model objects copies */
+	private Buffered3DGraphics view[] = new Buffered3DGraphics[0];
+	private SourceView viewSource[][] = new SourceView[0][];
+	/** render the views as fork/join tasks */
+	private boolean parallelViews = false;
+
+	/** the model compiled, its vertices in the toplevel object coordinates */
+	private CompiledScene scene = null;
+	/** model objects with a mesh, in the component tree order, and their node */
+	private Object3D source[] = new Object3D[0];
+	private int sourceNode[], nSource = 0;
+	/** winding sign of the last transform of each source */
+	private int sourceSign[];
+	/** toplevel object transformation given to the views, and its scratch */
+	private Affine3D modelTransform = null, nextModelTransform = new Affine3D();
+
+	public MultiView3DGraphics(Object3D model) {
+		super();
+		this.model = model;
+	}
+
+	/**
+	 * @brief Adds a view of the model, seen from the camera of its graphics
+	 * @param i image the view is painted in
+	 * @param w view width
+	 * @param h view height
+	 * @param f view focal
+	 * @return the graphics of the view, whose model is the view's own
+	 * toplevel object: its culling and ordering settings apply to the view
+	 */
+	public Buffered3DGraphics addView(Image i, int w, int h, int f) {
+		Object3D top = new Object3D();
+		Buffered3DGraphics g = new Buffered3DGraphics(top, i, w, h, f);
+		view = Arrays.copyOf(view, view.length + 1);
+		viewSource = Arrays.copyOf(viewSource, viewSource.length + 1);
+		view[view.length - 1] = g;
+		buildView(view.length - 1);
+		return g;
+	}
+
+	public Buffered3DGraphics getView(int i) {
+		return view[i];
+	}
+
+	public int getNView() {
+		return view.length;
+	}
+
+	public Object3D getModel() {
+		return model;
+	}
+
+	/**
+	 * @param model the model the views show, copied again by the next update
+	 */
+	public void setModel(Object3D model) {
+		this.model = model;
+		scene = null;
+		nSource = 0;
+		source = new Object3D[0];
+		for (int i = 0; i < view.length; i++)
+			buildView(i);
+	}
+
+	/**
+	 * @param parallel render the views as fork/join tasks
+	 */
+	public void setParallelViews(boolean parallel) {
+		parallelViews = parallel;
+	}
+
+	public boolean isParallelViews() {
+		return parallelViews;
+	}
+
+	/**
+	 * @brief Transforms the model to its toplevel object coordinates,
+	 * then updates and paints every view in its buffered image.
+	 */
+	public void updateModel() {
+		int i;
+		updateWorld();
+		if (parallelViews && view.length > 1) {
+			new ViewTask(view, 0, view.length).invoke();
+		} else {
+			for (i = 0; i < view.length; i++)
+				view[i].updateModel();
+		}
+	}
+
+	/**
+	 * @brief Compiles the model and copies its objects in the views again 
+	 * if the component tree changed, then updates the compiled scene: the 
+	 * vertices of the objects whose transformation or mesh changed since 
+	 * the last frame are transformed again.
+	 */
+	private void updateWorld() {
+		int i;
+		Affine3D swap;
+		nextModelTransform.set(model.transformation);
+		if (modelTransform == null || !Arrays.equals(modelTransform.getCell(), nextModelTransform.getCell())) {
+			swap = modelTransform != null ? modelTransform : new Affine3D();
+			modelTransform = nextModelTransform;
+			nextModelTransform = swap;
+			for (i = 0; i < view.length; i++)
+				view[i].getModel().setPosition(modelTransform.get(view[i].getModel().getPosition()));
+		}
+		if (scene == null || !scene.isValid()) {
+			scene = model.compile();
+			setSources();
+			for (i = 0; i < view.length; i++)
+				buildView(i);
+		}
+		scene.update();
+		for (i = 0; i < nSource; i++)
+			updateSource(i);
+	}
+
+	/**
+	 * @brief the compiled objects with a mesh are the sources
+	 */
+	private void setSources() {
+		int i;
+		Object3D o;
+		nSource = 0;
+		source = new Object3D[scene.getNNode()];
+		sourceNode = new int[scene.getNNode()];
+		for (i = 0; i < scene.getNNode(); i++) {
+			o = scene.getNode(i);
+			if (o.mesh != null && o.mesh.getNEdge() > 0) {
+				source[nSource] = o;
+				sourceNode[nSource++] = i;
+			}
+		}
+		sourceSign = new int[nSource];
+	}
+
+	/**
+	 * @brief Replaces the children of a view's toplevel object by copies
+	 * of the sources, their meshes referencing the ranges of the compiled 
+	 * scene vertices
+	 */
+	private void buildView(int v) {
+		int i, j;
+		Object3D top = view[v].getModel(), s;
+		SourceView p;
+		Mesh sm;
+		PolygonEdgeIndexes f[];
+		IdentityHashMap<Object3D, Object3D> standIn;
+		top.child = null;
+		top.nChild = 0;
+		if (modelTransform != null)
+			top.setPosition(modelTransform.get(top.getPosition()));
+		viewSource[v] = new SourceView[nSource];
+		for (i = 0; i < nSource; i++) {
+			s = source[i];
+			sm = s.mesh;
+			p = new SourceView();
+			p.color = s.color;
+			p.backFaceCulling = s.backFaceCulling;
+			p.setMesh(new Mesh(sm.getNVertex(), sm.getNEdge(), scene.getWorldX(), scene.getWorldY(), 
+					scene.getWorldZ(), scene.getVertexFirst()[sourceNode[i]], sm.getEdge()));
+			standIn = p.standIn(s);
+			f = new PolygonEdgeIndexes[s.nFacet];
+			for (j = 0; j < s.nFacet; j++) {
+				f[j] = p.new PolygonEdgeIndexes(p, s.facet[j].edge);
+				f[j].shadedAs(s.facet[j], standIn.get(s.facet[j].shadeObject()));
+				f[j].orientedAs(s.facet[j], sourceSign[i]);
+			}
+			p.setFacet(f, s.nFacet);
+			top.addChild(p);
+			viewSource[v][i] = p;
+		}
+		top.reset();
+	}
+
+	/**
+	 * @brief The copies of a source transformed again by the last update of 
+	 * the compiled scene are projected again by the views, and oriented 
+	 * again if its mesh or its mirroring changed. Keeps the copies colors 
+	 * up to date.
+	 */
+	private void updateSource(int i) {
+		int j, v, sign;
+		int k = sourceNode[i];
+		Object3D s = source[i];
+		boolean reloaded = scene.isReloaded(k);
+		SourceView p;
+		if (scene.isTransformed(k)) {
+			// closed meshes keep the windings against their own center
+			sign = 0;
+			if (s.backFaceCulling) {
+				if (reloaded)
+					s.updateWindings();
+				sign = scene.det(k) < 0 ? -1 : 1;
+			}
+			for (v = 0; v < view.length; v++) {
+				p = viewSource[v][i];
+				p.mesh.invalidate();
+				p.invalidate();
+				if (reloaded || sign != sourceSign[i]) {
+					for (j = 0; j < s.nFacet; j++)
+						p.facet[j].orientedAs(s.facet[j], sign);
+				}
+			}
+			sourceSign[i] = sign;
+		}
+		for (v = 0; v < view.length; v++)
+			viewSource[v][i].shadeAs(s);
+	}
+
+	/**
+	 * @brief One view's copy of a source object: its mesh references the
+	 * compiled coordinates of the source vertices, its facets the source edge
+	 * indexes. Facets of a static batch shade on stand-ins for the objects
+	 * baked in it, as the batch does on these objects.
+	 */
+	private static class SourceView extends BatchObject3D {
+
+		/** objects baked in the source batch, the sources are their stand-ins */
+		private Object3D batched[] = null;
+
+		/**
+		 * @brief Builds the stand-ins of a static batch source
+		 * @return the stand-in of each object the source facets shade on
+		 */
+		IdentityHashMap<Object3D, Object3D> standIn(Object3D s) {
+			int i;
+			IdentityHashMap<Object3D, Object3D> map = new IdentityHashMap<Object3D, Object3D>();
+			if (!(s instanceof StaticBatch))
+				return map;
+			batched = Arrays.copyOf(((StaticBatch) s).getSource(), ((StaticBatch) s).getNSource());
+			sourceEdge = ((StaticBatch) s).getSourceEdge();
+			source = new Object3D[batched.length];
+			nSource = batched.length;
+			for (i = 0; i < nSource; i++) {
+				source[i] = new Object3D();
+				source[i].nFacet = batched[i].nFacet;
+				source[i].brightIncLocal = batched[i].brightIncLocal;
+				map.put(batched[i], source[i]);
+			}
+			shadeAs(s);
+			return map;
+		}
+
+		/**
+		 * @brief takes the colors of the source and of the objects baked in it
+		 */
+		void shadeAs(Object3D s) {
+			int i;
+			color = s.color;
+			for (i = 0; i < nSource; i++)
+				source[i].color = batched[i].color;
+		}
+
+	}
+
+	/**
+	 * @brief Parallel update of the views [from, to[
+	 */
+	private static class ViewTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private Buffered3DGraphics view[];
+		private int from, to;
+
+		public ViewTask(Buffered3DGraphics view[], int from, int to) {
+			this.view = view;
+			this.from = from;
+			this.to = to;
+		}
+
+		protected void compute() {
+			if (to - from > 1) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new ViewTask(view, from, mid), new ViewTask(view, mid, to));
+				return;
+			}
+			view[from].updateModel();
+		}
+
+	}
+
+}
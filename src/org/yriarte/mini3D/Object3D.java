@@ -1,544 +1,1998 @@
-/*
- * Copyright (c) 2008, Luc Yriarte
- * All rights reserved.
- * 
- * @file Object3D.java
- * @author Luc Yriarte
- * 
- * License: BSD <http://www.opensource.org/licenses/bsd-license.php>
- * 
- * Redistribution and use in source and binary forms, with or without modification, are permitted 
- * provided that the following conditions are met:
- * 
- *     * Redistributions of source code must retain the above copyright notice, this 
- * list of conditions and the following disclaimer.
- *     * Redistributions in binary form must reproduce the above copyright notice, this 
- * list of conditions and the following disclaimer in the documentation and/or other materials 
- * provided with the distribution.
- *     * The name of Luc Yriarte may not be used to endorse or promote products derived 
- * from this software without specific prior written permission.
- * 
- * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR 
- * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND 
- * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. 
- * IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
- * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
- * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY 
- * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
- * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
- * 
- */
-
-package org.yriarte.mini3D;
-
-import org.yriarte.graphics.Color;
-import org.yriarte.graphics.Graphics;
-import org.yriarte.graphics.Polygon;
-import org.yriarte.math.Matrix;
-
-/**
- * Object3D : Base class for all 3D Objects.
- * 
- * Left handed coordinates.
- * Every 3D object has its own referential as a transformation matrix 
- * relative to its parent in the composition hierarchy.
- */
-public class Object3D {
-	
-	/** 
-	 * Object3D class constants 
-	 */
-	/** Draw mode: wireframe or facets facets */
-	public static final int DRAW_WIREFRAME = 0;
-	public static final int DRAW_FACETS = 1; 
-	/** Color shading per object */
-	public static final int BRIGHT_SCALE = 255;
-	
-	/** 
-	 * Object3D class variables 
-	 */
-	/** Default Draw mode */ 
-	public static int DRAW_DEFAULT = DRAW_FACETS;
-	/** Number of segments to approximate a circle */
-	public static int N_DEFAULT = 12; 
-	/** Default object color */
-	public static Color COLOR_DEFAULT = new Color(127,127,127);
-	
-	/** 
-	 * Object3D instance variables 
-	 */
-	
-	/** Color shading */
-	protected Color color = null;
-	protected int drawMode = DRAW_DEFAULT;
-	protected float brightIncLocal = 0;
-	protected int brightDelta = 0;
-
-	/** Position, Orientation and combined transformation on mesh vertices */
-	protected Matrix position, orientation, transformation;
-	protected Matrix updatedTransform = null;
-	protected Mesh mesh;
-	
-	/** Object component tree */
-	protected int nChild = 0, nFacet = 0, nFacetTotal = 0;
-	protected Object3D[] child = null;
-	protected Object3D parent = null;
-	/** This object's facets */
-	protected PolygonEdgeIndexes[] facet = null;
-	/** This object's facets and its children's*/
-	protected PolygonEdgeIndexes[] facetTotal = null;
-	/** Select a vertex on this object or one of its child's mesh */
-	protected int selectedVertex = -1;
-	protected Object3D selectedObject = null;
-	
-	public Object3D() {
-		mesh = new Mesh();
-		position = new Matrix3D();
-		orientation = new Matrix3D();
-		transformation = new Matrix3D();
-	}
-
-	public Object3D reset() {
-		return reset(0,0,0,0,0,0,0,0,0,0,0,0);
-	}
-	
-	/**
-	 * @brief sets the object's coordinate system relative to its parents, 
-	 * and every vertex of the mesh relative to the object's oordinate system
-	 * 
-	 * @param trnX translation on the x axis
-	 * @param trnY translation on the y axis
-	 * @param trnZ translation on the z axis
-	 * @param trn0X translate the mesh on the x axis
-	 * @param trn0Y translate the mesh on the y axis
-	 * @param trn0Z translate the mesh on the z axis
-	 * @param rotX rotation on the x axis, in radians
-	 * @param rotY rotation on the y axis, in radians
-	 * @param rotZ rotation on the z axis, in radians
-	 * @param rot0X rotate the mesh on the x axis, in radians
-	 * @param rot0Y rotate the mesh on the y axis, in radians
-	 * @param rot0Z rotate the mesh on the z axis, in radians
-	 * 
-	 * @return this Object3D
-	 */
-	public Object3D reset(double trnX, double trnY, double trnZ, 
-			double trn0X, double trn0Y, double trn0Z,
-			double rotX, double rotY, double rotZ, 
-			double rot0X, double rot0Y, double rot0Z) {
-		selectedVertex = -1;
-		selectedObject = null;
-		if (rot0X != 0)
-			mesh.transformThis(Matrix3D.rotationX(rot0X));
-		if (rot0Y != 0)
-			mesh.transformThis(Matrix3D.rotationY(rot0Y));
-		if (rot0Z != 0)
-			mesh.transformThis(Matrix3D.rotationZ(rot0Z));
-		if (trn0X != 0 || trn0Y != 0 || trn0Z != 0)
-			mesh.transformThis(Matrix3D.translation(trn0X, trn0Y, trn0Z));
-		if (rotX != 0)
-			orientation = orientation.mul(Matrix3D.rotationX(rotX));
-		if (rotY != 0)
-			orientation = orientation.mul(Matrix3D.rotationY(rotY));
-		if (rotZ != 0)
-			orientation = orientation.mul(Matrix3D.rotationZ(rotZ));
-		if (trnX != 0 || trnY != 0 || trnZ != 0)
-			position = position.mul(Matrix3D.translation(trnX, trnY, trnZ));
-		transformation = position.mul(orientation);
-		updatedTransform = null;
-		if (color == null) {
-			if (parent != null)
-				color = parent.color;
-			else
-				color = COLOR_DEFAULT;
-		}
-		// shading colors
-		brightIncLocal = nFacet != 0 ? BRIGHT_SCALE / nFacet : 0;
-		nFacetTotal = nFacet;
-		for (int i = 0; i < nChild; i++) {
-			child[i].reset();
-			nFacetTotal += child[i].nFacetTotal;
-		}
-		// only build the facet list if this is the toplevel object
-		if (parent == null && nFacetTotal > 0) {
-			facetTotal = new PolygonEdgeIndexes[nFacetTotal];
-			buildFacetList(facetTotal, 0);
-		}
-		if (nFacetTotal == 0 && mesh != null)
-			drawMode = DRAW_WIREFRAME;
-		return this;
-	}
-	
-	/**
-	 * @brief Scales the mesh on the 3 axes
-	 * @param scaleX
-	 * @param scaleY
-	 * @param scaleZ
-	 * @return this Object3D
-	 */
-	public Object3D resetScale(double scaleX, double scaleY, double scaleZ) {
-		if (scaleX != 1 || scaleY != 1 || scaleZ != 1)
-			mesh.transformThis(Matrix3D.scale(scaleX, scaleY, scaleZ));
-		return this;
-	}
-
-	/**
-	 * @return the color
-	 */
-	public Color getColor() {
-		return color;
-	}
-	
-	/**
-	 * @param color 
-	 */
-	public void setColor(Color color) {
-		this.color = color;
-	}
-	
-	/**
-	 * @return the current transformation matrix
-	 */
-	public Matrix getTransformation() {
-		return transformation;
-	}
-
-	/**
-	 * @return the orientation matrix
-	 */
-	public Matrix getOrientation() {
-		return orientation;
-	}
-
-	public Object3D setOrientation(Matrix orientation) {
-		this.orientation = orientation;
-		transformation = position.mul(orientation);
-		updatedTransform = null;
-		return this;
-	}
-
-	/**
-	 * @return the position matrix
-	 */
-	public Matrix getPosition() {
-		return position;
-	}
-
-	public Object3D setPosition(Matrix position) {
-		this.position = position;
-		transformation = position.mul(orientation);
-		updatedTransform = null;
-		return this;
-	}
-
-	/**
-	 * @return the mesh
-	 */
-	public Mesh getMesh() {
-		return mesh;
-	}
-
-	public Object3D setMesh(Mesh mesh) {
-		this.mesh = mesh;
-		return this;
-	}
-
-    public PolygonEdgeIndexes[] getFacet() {
-        return facet;
-    }
-    
-    public void setFacet(PolygonEdgeIndexes[] facet, int nFacet) {
-        this.facet = facet;
-        this.nFacet = nFacet;
-    }
-    
-    public int getNFacet() {
-        return nFacet;
-    }
-    
-    /**
-     * @brief apply a transformation matrix to the object's coordinate system 
-     * @param trans a transformation matrix
-     * @return this Object3D
-     */
-	public Object3D transform(Matrix trans) {
-		transformation = transformation.mul(trans);
-		updatedTransform = null;
-		return this;
-	}
-
-    /**
-     * @brief apply a transformation matrix to the all the object's mesh vertices 
-     * @param trans a transformation matrix
-     * @return this Object3D
-     */
-	public Object3D transformMesh(Matrix trans) {
-		mesh.transformThis(trans);
-		return this;
-	}
-
-    /**
-     * @brief apply a transformation matrix to the all the object's mesh vertices,
-     * and recursively to the object's children
-     * @param trans a transformation matrix
-     * @return this Object3D
-     */
-	public Object3D transformMeshes(Matrix trans) {
-	    int i;
-	    transformMesh(trans);
-		for (i = 0; i < nChild; i++) {
-			child[i].transformMeshes(trans);
-		}
-		return this;
-	}
-
-	/**
-	 * 
-	 * @param obj an Object3D
-	 * @return this Object3D
-	 */
-	public Object3D addChild(Object3D obj) {
-		int i;
-		Object3D[] prevChild = child;
-		child = new Object3D[nChild + 1];
-		for (i = 0; i < nChild; i++) {
-			child[i] = prevChild[i];
-		}
-		child[nChild] = obj;
-		obj.parent = this;
-		if (obj.color == null)
-			obj.color = this.color;
-		nChild++;
-		return this;
-	}
-
-	public Object3D getChild(int i) {
-		if (child == null)
-			return null;
-		return child[i];
-	}
-
-	/**
-	 * @brief Builds a set of facets attached to the toplevel object,
-	 * recursively descends on the children.
-	 * 
-	 * @param facetList the global facet list
-	 * @param startIndex index in the list where to add the current object facets
-	 * @return index where the next object will add its facets
-	 */
-	private int buildFacetList(PolygonEdgeIndexes[] facetList, int startIndex) {
-		int i;
-		for (i = 0; i < nFacet; i++) {
-			facetList[startIndex++] = facet[i];
-		}
-		for (i = 0; i < nChild; i++) {
-			startIndex = child[i].buildFacetList(facetList, startIndex);
-		}
-		// if this was a toplevel object at some point, but not anymore,  
-		// drop the previous global facet list.
-		if (parent != null)
-			facetTotal = null;
-		return startIndex;
-	}
-
-	private void sortFacetTotal() {
-		int i, n;
-		PolygonEdgeIndexes tmpFacet;
-		n = nFacetTotal;
-		do {
-			tmpFacet = null;
-			for (i = 1; i < n; i++) {
-				if (facetTotal[i - 1].z < facetTotal[i].z) {
-					tmpFacet = facetTotal[i];
-					facetTotal[i] = facetTotal[i - 1];
-					facetTotal[i - 1] = tmpFacet;
-				}
-			}
-			n--;
-		} while (tmpFacet != null);
-	}
-
-	private int updateWireframe(int focal, int screenX, int screenY) {
-		int i, nEdge;
-		nEdge = 0;
-		if (parent != null && parent.updatedTransform != null)
-			updatedTransform = parent.updatedTransform.mul(transformation);
-		else
-			updatedTransform = transformation;
-		for (i = 0; i < nChild; i++) {
-			nEdge += child[i].updateWireframe(focal, screenX, screenY);
-		}
-		if (mesh.getNEdge() > 0)
-			mesh.setWireframe(mesh.transform(updatedTransform).updateWireframe(focal, screenX, screenY));
-		return nEdge + mesh.getNEdge();
-	}
-
-	private void updateFacets(int focal, int screenX, int screenY) {
-		int i;
-		for (i = 0; i < nChild; i++) {
-			child[i].updateFacets(focal, screenX, screenY);
-		}
-		for (i = 0; i < nFacet; i++) {
-			facet[i].updatePolygon();
-		}
-	}
-
-	public void update(int focal, int screenX, int screenY) {
-		updateWireframe(focal, screenX, screenY);
-		if (drawMode == DRAW_FACETS) {
-			updateFacets(focal, screenX, screenY);
-			if (facetTotal != null)
-				sortFacetTotal();
-		}
-	}
-
-	private Color colorDelta(Color baseColor, int brightDelta) {
-		int rgb, r, g, b;
-		rgb = baseColor.getRGB();
-		r = Math.max(Math.min(((rgb & 0x00FF0000) >> 16) + brightDelta,255),0);
-		g = Math.max(Math.min(((rgb & 0x0000FF00) >> 8) + brightDelta,255),0);
-		b = Math.max(Math.min(((rgb & 0x000000FF)) + brightDelta,255),0);
-		return new Color(r, g, b);
-	}
-	
-	public void paint(Graphics graphics) {
-		int i;
-		brightDelta = -(BRIGHT_SCALE / 2);
-		for (i = 0; i < nChild; i++)
-			child[i].paint(graphics);
-		if (drawMode == DRAW_FACETS && facetTotal != null) {
-			for (i = 0; i < nFacetTotal; i++) {
-				graphics.setColor(colorDelta(facetTotal[i].obj.color,facetTotal[i].obj.brightDelta));
-				facetTotal[i].obj.brightDelta += facetTotal[i].obj.brightIncLocal;
-				if (facetTotal[i].z < 0) {
-					break;
-				}
-				facetTotal[i].paint(graphics);
-			}
-		} else if (drawMode == DRAW_WIREFRAME) {
-			graphics.setColor(color);
-			int nEdge = mesh.getNEdge();
-			int lines[][] = mesh.getLines();
-			for (i = 0; i < nEdge; i++) {
-				if (lines[i][4] >= 0)
-					graphics.drawLine(lines[i][0], lines[i][1],
-							lines[i][2], lines[i][3]);
-			}
-		}
-	}
-
-	/**
-	 * @param d draw mode: DRAW_WIREFRAME or DRAW_FACETS
-	 * If there are no facets on this object, draw mode is forced to wireframe.
-	 */
-	public void setDrawMode(int d) {
-		int i;
-		drawMode = d;
-		if (nFacetTotal == 0 && mesh != null)
-			drawMode = DRAW_WIREFRAME;
-		for (i = 0; i < nChild; i++)
-			child[i].setDrawMode(d);
-	}
-
-	/**
-	 * @brief Selects the first vertex where xy coordinates in the mesh
-	 * wireframe are closer than r to xy parameters.
-	 * @param x
-	 * @param y
-	 * @param r
-	 * @return index of the selected vertex in the selected object
-	 */
-	public int selectVertex(int x, int y, int r) {
-		int i;
-		this.selectedVertex=-1;
-		this.selectedObject=null;
-//		 select vertex on this object mesh
-		if (mesh != null) { 
-			this.selectedVertex=mesh.selectVertex(x,y,r);
-			if (this.selectedVertex!=-1) {
-				this.selectedObject=this;
-				return this.selectedVertex;
-			}
-		}
-//		 look for a vertex on children's meshes
-		for (i = 0; i < nChild; i++) {
-			this.selectedVertex=child[i].selectVertex(x,y,r);
-			if (this.selectedVertex!=-1) {
-				this.selectedObject=child[i].selectedObject;					
-				return this.selectedVertex;
-			}
-		}
-		return this.selectedVertex;
-	}
-	
-	public org.yriarte.mini3D.Vector3D getSelectedVertex() {
-		if (this.selectedVertex!=-1)
-			return this.selectedObject.getMesh().getVertex()[this.selectedVertex];
-		return null;
-	}
-	
-	/**
-	 * @return [[xmin,xmax],[ymin,ymax],[zmin,zmax]]
-	 */
-	public Matrix calculateBounds() {
-		Matrix mxXyYzZ = mesh.calculateBounds();
-		for (int i = 0; i < nChild; i++) {
-			Matrix mChildBounds = child[i].calculateBounds();
-			for (int j=0; j<3; j++) {
-				mxXyYzZ.getCell()[j][0]=Math.min(mxXyYzZ.getCell()[j][0],mChildBounds.getCell()[j][0]);
-				mxXyYzZ.getCell()[j][1]=Math.max(mxXyYzZ.getCell()[j][1],mChildBounds.getCell()[j][1]);
-			}
-		}
-		return mxXyYzZ;
-	}
-	
-	
-	/**
-	 * @brief The awt Polygon links the last point to the first.
-	 */
-	public class PolygonEdgeIndexes {
-
-		private Object3D obj;
-
-		private int z = 0;
-		private int nEdge = 0;
-		public int edge[] = null;
-
-		private Polygon polygon;
-
-		public PolygonEdgeIndexes(Object3D o, int n) {
-			obj = o;
-			nEdge = n;
-			edge = new int[n];
-			z = 0;
-		}
-
-		public void updatePolygon() {
-			int i,zMin,zMax;
-			int xP[] = new int[nEdge];
-			int yP[] = new int[nEdge];
-			int lines[][] = obj.mesh.getLines();
-			zMin = zMax = lines[edge[0]][4];
-			for (i = 0; i < nEdge; i++) {
-				xP[i] = lines[edge[i]][0];
-				yP[i] = lines[edge[i]][1];
-				if (zMin > lines[edge[i]][4])
-					zMin = lines[edge[i]][4];
-				if (zMax < lines[edge[i]][4])
-					zMax = lines[edge[i]][4];
-			}
-			polygon = new Polygon(xP, yP, nEdge);
-			// the midpoint of the z range
-			z = (zMax + zMin) >> 1;
-		}
-
-		public void updatePolygon(int xP[], int yP[]) {
-			polygon = new Polygon(xP, yP, nEdge);
-		}
-
-		public void paint(Graphics g) {
-			g.fillPolygon(polygon);
-		}
-
-	}
-	
-}
+/*
+ * Copyright (c) 2008, Luc Yriarte
+ * All rights reserved.
+ * 
+ * @file Object3D.java
+ * @author Luc Yriarte
+ * 
+ * License: BSD <http://www.opensource.org/licenses/bsd-license.php>
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted 
+ * provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright notice, this 
+ * list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright notice, this 
+ * list of conditions and the following disclaimer in the documentation and/or other materials 
+ * provided with the distribution.
+ *     * The name of Luc Yriarte may not be used to endorse or promote products derived 
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR 
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND 
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. 
+ * IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY 
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ * 
+ */
+
+package org.yriarte.mini3D;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import org.yriarte.graphics.Color;
+import org.yriarte.graphics.DepthGraphics;
+import org.yriarte.graphics.Graphics;
+import org.yriarte.graphics.Polygon;
+import org.yriarte.math.Matrix;
+
+/**
+ * Object3D : Base class for all 3D Objects.
+ * 
+ * Left handed coordinates.
+ * Every 3D object has its own referential as a transformation matrix 
+ * relative to its parent in the composition hierarchy.
+ */
+public class Object3D {
+	
+	/** 
+	 * Object3D class constants 
+	 */
+	/** Draw mode: wireframe or facets facets */
+	public static final int DRAW_WIREFRAME = 0;
+	public static final int DRAW_FACETS = 1; 
+	/** Facets without sorting, on a DepthGraphics depth buffer */
+	public static final int DRAW_ZBUFFER = 2;
+	/** Color shading per object */
+	public static final int BRIGHT_SCALE = 255;
+	/** View frustum test results */
+	private static final int VIEW_OUTSIDE = 0;
+	private static final int VIEW_INSIDE = 1;
+	private static final int VIEW_PARTIAL = 2;
+	
+	/** 
+	 * Object3D class variables 
+	 */
+	/** Default Draw mode */ 
+	public static int DRAW_DEFAULT = DRAW_FACETS;
+	/** Number of segments to approximate a circle */
+	public static int N_DEFAULT = 12; 
+	/** Default object color */
+	public static Color COLOR_DEFAULT = new Color(127,127,127);
+	/** Parallel update: subtrees with fewer vertices are updated serially */
+	public static int PARALLEL_UPDATE_MIN = 4096;
+	/** Parallel update: facets per task */
+	public static int PARALLEL_FACETS = 2048;
+	/** Level of detail: wanted length of a tessellation segment, in pixels */
+	public static double LOD_PIXELS = 8;
+	/** Level of detail: subtrees projected smaller than this radius in pixels are skipped */
+	public static double LOD_MIN_PIXELS = 0.5;
+	/** Level of detail: segments of the coarsest tessellation */
+	public static int LOD_MIN_SEGMENTS = 3;
+	/** Facet budget: update passes doubling LOD_PIXELS until the facets in view fit */
+	public static int LOD_BUDGET_PASSES = 4;
+	/** Occlusion culling: objects projected smaller than this radius in pixels hide nothing */
+	public static double OCCLUDER_PIXELS = 32;
+	/** Occlusion culling: largest objects drawn in the occlusion buffer */
+	public static int OCCLUDERS_MAX = 16;
+	
+	/** 
+	 * Object3D instance variables 
+	 */
+	
+	/** Color shading */
+	protected Color color = null;
+	protected int drawMode = DRAW_DEFAULT;
+	protected float brightIncLocal = 0;
+	/** Rank of the next facet painted for this object in the shading ramp */
+	protected int brightIndex = 0;
+	/** Shading ramp: color of each facet rank, built for shadeColor */
+	protected Color shade[] = null;
+	protected Color shadeColor = null;
+	/** Frame batch: facet polygons points, first point and color of each facet */
+	private int batchX[] = null, batchY[] = null, batchOffsets[] = null, batchRGB[] = null;
+	/** Depth batch: 1/z of each facet point */
+	private float batchIZ[] = null;
+	private int nBatchPolygon, nBatchPoint;
+	/** Wireframe batch: line coordinates */
+	private int lineBatch[] = null;
+
+	/** Position, Orientation and combined transformation on mesh vertices */
+	protected Matrix position, orientation, transformation;
+	/** Combined transformation from the toplevel object, refreshed every frame */
+	protected Affine3D updatedTransform;
+	/** Combined transformation to the model coordinates, kept until the chain changes */
+	private Affine3D worldTransform = null;
+	private boolean worldValid = false;
+	/** camera transformation of the toplevel object, null for none */
+	private Affine3D view = null, nextView = null;
+	protected Mesh mesh;
+	/** Change tracking: transformation changed since the last update */
+	protected boolean changed = true;
+	/** mesh, mesh modCount and projection of the last mesh update */
+	private Mesh updatedMesh = null;
+	private int updatedModCount, updatedFocal, updatedScreenX, updatedScreenY;
+	private boolean facetsValid = false;
+	/** View frustum culling of the subtrees, set on the toplevel object */
+	protected boolean frustumCulling = true;
+	/** Left out of the last update as outside the view */
+	protected boolean outOfView = false;
+	/** Occlusion culling of the subtrees, set on the toplevel object */
+	protected boolean occlusionCulling = false;
+	/** occluders depth raster and occluders scratch of the toplevel object */
+	private OcclusionBuffer occlusion = null;
+	private Object3D occluder[] = null;
+	private double occluderPixels[] = null;
+	private Affine3D occluderTransform[] = null, occluderEye = null;
+	private int occluderX[] = null, occluderY[] = null, occluderIndex[] = null;
+	private double occluderZ[] = null;
+	/** Bounding sphere {x, y, z, r} of the subtree in this object's coordinates */
+	private double bound[] = new double[4];
+	private boolean boundValid = false;
+	private Mesh boundMesh = null;
+	private int boundModCount;
+	
+	/** Object component tree */
+	protected int nChild = 0, nFacet = 0, nFacetTotal = 0;
+	/** Vertices of this object's mesh and its children's, counted by reset */
+	protected int nVertexTotal = 0;
+	/** Levels of detail: tessellations from the finest, null without levels */
+	private Mesh levelMesh[] = null;
+	private PolygonEdgeIndexes levelFacet[][] = null;
+	protected int levelSegments[] = null;
+	protected int level = 0;
+	/** Level of detail and small subtrees skipping, set on the toplevel object */
+	protected boolean levelOfDetail = true;
+	/** Facets in view per frame, 0 without a budget, set on the toplevel object */
+	protected int facetBudget = 0;
+	/** A level change in the subtree changed the facet list */
+	private boolean facetListChanged = false;
+	/** Update the component tree as fork/join tasks */
+	protected boolean parallelUpdate = false;
+	protected Object3D[] child = null;
+	protected Object3D parent = null;
+	/** This object's facets */
+	protected PolygonEdgeIndexes[] facet = null;
+	/** This object's facets and its children's*/
+	protected PolygonEdgeIndexes[] facetTotal = null;
+	/** Facets of facetTotal facing the viewer, moved ahead of the culled ones */
+	protected int nVisible = 0;
+	/** Back-face culling: skip the facets facing away from the viewer */
+	protected boolean backFaceCulling = false;
+	/** Culling side: 0 without culling, -1 if updatedTransform is a mirror */
+	protected int cullSign = 0;
+	/** Facets of this object culled by the last update */
+	protected int nCulled = 0;
+	/** mesh and mesh modCount of the last facet windings */
+	private Mesh windingMesh = null;
+	private int windingModCount;
+	/** Painter's algorithm ordering of facetTotal */
+	protected DepthSorter depthSorter = null;
+	/** paint the facets in the order of a BSP tree instead of sorting them */
+	protected boolean bspOrdering = false;
+	private BspTree bspTree = null;
+	/** one polygon clipper per update thread */
+	static final ThreadLocal<PolygonClipper> CLIPPER = new ThreadLocal<PolygonClipper>() {
+		protected PolygonClipper initialValue() {
+			return new PolygonClipper();
+		}
+	};
+	/** culled facets scratch of cullFacetTotal */
+	private PolygonEdgeIndexes[] culledFacets = null;
+	/** Select a vertex on this object or one of its child's mesh */
+	protected int selectedVertex = -1;
+	protected Object3D selectedObject = null;
+	
+	public Object3D() {
+		mesh = new Mesh();
+		position = new Matrix3D();
+		orientation = new Matrix3D();
+		transformation = new Matrix3D();
+		updatedTransform = new Affine3D();
+	}
+
+	public Object3D reset() {
+		return reset(0,0,0,0,0,0,0,0,0,0,0,0);
+	}
+	
+	/**
+	 * @brief sets the object's coordinate system relative to its parents, 
+	 * and every vertex of the mesh relative to the object's oordinate system
+	 * 
+	 * @param trnX translation on the x axis
+	 * @param trnY translation on the y axis
+	 * @param trnZ translation on the z axis
+	 * @param trn0X translate the mesh on the x axis
+	 * @param trn0Y translate the mesh on the y axis
+	 * @param trn0Z translate the mesh on the z axis
+	 * @param rotX rotation on the x axis, in radians
+	 * @param rotY rotation on the y axis, in radians
+	 * @param rotZ rotation on the z axis, in radians
+	 * @param rot0X rotate the mesh on the x axis, in radians
+	 * @param rot0Y rotate the mesh on the y axis, in radians
+	 * @param rot0Z rotate the mesh on the z axis, in radians
+	 * 
+	 * @return this Object3D
+	 */
+	public Object3D reset(double trnX, double trnY, double trnZ, 
+			double trn0X, double trn0Y, double trn0Z,
+			double rotX, double rotY, double rotZ, 
+			double rot0X, double rot0Y, double rot0Z) {
+		selectedVertex = -1;
+		selectedObject = null;
+		changed = true;
+		invalidateBounds();
+		invalidateWorld();
+		if (rot0X != 0)
+			transformLevels(Matrix3D.rotationX(rot0X));
+		if (rot0Y != 0)
+			transformLevels(Matrix3D.rotationY(rot0Y));
+		if (rot0Z != 0)
+			transformLevels(Matrix3D.rotationZ(rot0Z));
+		if (trn0X != 0 || trn0Y != 0 || trn0Z != 0)
+			transformLevels(Matrix3D.translation(trn0X, trn0Y, trn0Z));
+		if (rotX != 0)
+			orientation = orientation.mul(Matrix3D.rotationX(rotX));
+		if (rotY != 0)
+			orientation = orientation.mul(Matrix3D.rotationY(rotY));
+		if (rotZ != 0)
+			orientation = orientation.mul(Matrix3D.rotationZ(rotZ));
+		if (trnX != 0 || trnY != 0 || trnZ != 0)
+			position = position.mul(Matrix3D.translation(trnX, trnY, trnZ));
+		transformation = position.mul(orientation);
+		if (color == null) {
+			if (parent != null)
+				color = parent.color;
+			else
+				color = COLOR_DEFAULT;
+		}
+		// shading colors
+		brightIncLocal = brightIncrement();
+		shade = null;
+		nFacetTotal = nFacet;
+		nVertexTotal = mesh != null ? mesh.getNVertex() : 0;
+		for (int i = 0; i < nChild; i++) {
+			child[i].reset();
+			nFacetTotal += child[i].nFacetTotal;
+			nVertexTotal += child[i].nVertexTotal;
+		}
+		// only build the facet list if this is the toplevel object
+		if (parent == null && nFacetTotal > 0) {
+			facetTotal = new PolygonEdgeIndexes[nFacetTotal];
+			buildFacetList(facetTotal, 0);
+			nVisible = nFacetTotal;
+			facetListChanged = false;
+			bspTree = null;
+		}
+		if (nFacetTotal == 0 && mesh != null)
+			drawMode = DRAW_WIREFRAME;
+		return this;
+	}
+	
+	/**
+	 * @brief Scales the mesh on the 3 axes
+	 * @param scaleX
+	 * @param scaleY
+	 * @param scaleZ
+	 * @return this Object3D
+	 */
+	public Object3D resetScale(double scaleX, double scaleY, double scaleZ) {
+		if (scaleX != 1 || scaleY != 1 || scaleZ != 1)
+			transformLevels(Matrix3D.scale(scaleX, scaleY, scaleZ));
+		return this;
+	}
+
+	/**
+	 * @return the color
+	 */
+	public Color getColor() {
+		return color;
+	}
+	
+	/**
+	 * @param color 
+	 */
+	public void setColor(Color color) {
+		this.color = color;
+	}
+	
+	/**
+	 * @return the current transformation matrix
+	 */
+	public Matrix getTransformation() {
+		return transformation;
+	}
+
+	/**
+	 * @return the orientation matrix
+	 */
+	public Matrix getOrientation() {
+		return orientation;
+	}
+
+	public Object3D setOrientation(Matrix orientation) {
+		this.orientation = orientation;
+		Matrix3D.mulInto(position, orientation, transformation);
+		transformationChanged();
+		return this;
+	}
+
+	/**
+	 * @return the position matrix
+	 */
+	public Matrix getPosition() {
+		return position;
+	}
+
+	public Object3D setPosition(Matrix position) {
+		this.position = position;
+		Matrix3D.mulInto(position, orientation, transformation);
+		transformationChanged();
+		return this;
+	}
+
+	/**
+	 * @return the mesh
+	 */
+	public Mesh getMesh() {
+		return mesh;
+	}
+
+	public Object3D setMesh(Mesh mesh) {
+		this.mesh = mesh;
+		levelMesh = null;
+		invalidateBounds();
+		return this;
+	}
+
+    public PolygonEdgeIndexes[] getFacet() {
+        return facet;
+    }
+    
+    public void setFacet(PolygonEdgeIndexes[] facet, int nFacet) {
+        this.facet = facet;
+        this.nFacet = nFacet;
+        levelMesh = null;
+        facetsValid = false;
+    }
+    
+    public int getNFacet() {
+        return nFacet;
+    }
+    
+    /**
+     * @brief apply a transformation matrix to the object's coordinate system 
+     * @param trans a transformation matrix
+     * @return this Object3D
+     */
+	public Object3D transform(Matrix trans) {
+		Matrix3D.mulInto(transformation, trans, transformation);
+		transformationChanged();
+		return this;
+	}
+
+    /**
+     * @brief apply a transformation matrix to the all the object's mesh vertices 
+     * @param trans a transformation matrix
+     * @return this Object3D
+     */
+	public Object3D transformMesh(Matrix trans) {
+		transformLevels(trans);
+		invalidateBounds();
+		return this;
+	}
+
+    /**
+     * @brief apply a transformation matrix to the all the object's mesh vertices,
+     * and recursively to the object's children
+     * @param trans a transformation matrix
+     * @return this Object3D
+     */
+	public Object3D transformMeshes(Matrix trans) {
+	    int i;
+	    transformMesh(trans);
+		for (i = 0; i < nChild; i++) {
+			child[i].transformMeshes(trans);
+		}
+		return this;
+	}
+
+	/**
+	 * @brief applies trans to the mesh vertices of every level of detail
+	 */
+	private void transformLevels(Matrix trans) {
+		int i;
+		if (levelMesh == null) {
+			mesh.transformThis(trans);
+			return;
+		}
+		for (i = 0; i < levelMesh.length; i++)
+			levelMesh[i].transformThis(trans);
+	}
+
+	/**
+	 * @brief Sets mesh, facet and nFacet to a tessellation with n segments 
+	 * for a full circle, overridden by the round primitives.
+	 * @param n segments
+	 */
+	protected void tessellate(int n) {
+	}
+
+	/**
+	 * @brief Sets mesh, facet and nFacet from a shared template, 
+	 * scaled on the 3 axes.
+	 * @param template unit sized tessellation
+	 */
+	protected void instantiate(PrimitiveTemplate template, double scaleX, double scaleY, double scaleZ) {
+		int i;
+		mesh = template.newMesh(scaleX, scaleY, scaleZ);
+		nFacet = template.getNFacet();
+		facet = new PolygonEdgeIndexes[nFacet];
+		for (i = 0; i < nFacet; i++)
+			facet[i] = new PolygonEdgeIndexes(this, template.getFacetEdge(i));
+	}
+
+	/**
+	 * @brief Keeps the current tessellation as the finest level of detail, 
+	 * and coarser ones halving the segments down to LOD_MIN_SEGMENTS.
+	 * @param n segments of the current tessellation
+	 */
+	protected void buildLevels(int n) {
+		int i, k, nLevel = 1;
+		for (k = n / 2; k >= LOD_MIN_SEGMENTS; k /= 2)
+			nLevel++;
+		levelMesh = null;
+		level = 0;
+		if (nLevel == 1)
+			return;
+		Mesh finest = mesh;
+		PolygonEdgeIndexes finestFacet[] = facet;
+		levelMesh = new Mesh[nLevel];
+		levelFacet = new PolygonEdgeIndexes[nLevel][];
+		levelSegments = new int[nLevel];
+		for (i = 0, k = n; i < nLevel; i++, k /= 2) {
+			if (i > 0)
+				tessellate(k);
+			levelMesh[i] = mesh;
+			levelFacet[i] = facet;
+			levelSegments[i] = k;
+		}
+		mesh = finest;
+		facet = finestFacet;
+		nFacet = facet.length;
+	}
+
+	/**
+	 * @return brightness step between two ranks of the shading ramp, 
+	 * every level of detail ramping over the finest level's range
+	 */
+	private float brightIncrement() {
+		int n = levelMesh != null ? levelFacet[0].length : nFacet;
+		if (nFacet == 0)
+			return 0;
+		return (float) (BRIGHT_SCALE / n) * n / nFacet;
+	}
+
+	/**
+	 * @return number of tessellations kept as levels of detail
+	 */
+	public int getNLevel() {
+		return levelMesh != null ? levelMesh.length : 1;
+	}
+
+	/**
+	 * @return the current level of detail, 0 for the finest
+	 */
+	public int getLevel() {
+		return level;
+	}
+
+	/**
+	 * @brief Switches to the tessellation of level l, the toplevel object 
+	 * rebuilds its facet list on the next update.
+	 */
+	private void setLevel(int l) {
+		Object3D o;
+		if (l == level)
+			return;
+		level = l;
+		mesh = levelMesh[l];
+		facet = levelFacet[l];
+		nFacet = facet.length;
+		brightIncLocal = brightIncrement();
+		facetsValid = false;
+		invalidateBounds();
+		for (o = this; o != null; o = o.parent) {
+			if (o.selectedObject == this) {
+				o.selectedVertex = -1;
+				o.selectedObject = null;
+			}
+			o.facetListChanged = true;
+		}
+	}
+
+	/**
+	 * @brief Chooses the coarsest tessellation whose segments project 
+	 * shorter than pixels, from the finest level bounding sphere.
+	 */
+	private void selectLevel(int focal, double pixels) {
+		int l;
+		double n = 2 * Math.PI * projectedRadius(levelMesh[0].getBoundingSphere(), focal) / pixels;
+		for (l = levelMesh.length - 1; l > 0 && levelSegments[l] < n; l--)
+			;
+		setLevel(l);
+	}
+
+	/**
+	 * @brief Skips the subtree if it projects smaller than LOD_MIN_PIXELS, 
+	 * else selects this object's level of detail.
+	 * @param pixels wanted length of a tessellation segment
+	 * @return false if the subtree is too small to be drawn
+	 */
+	private boolean selectDetail(int focal, double pixels) {
+		if (projectedRadius(getBoundingSphere(), focal) < LOD_MIN_PIXELS)
+			return false;
+		if (levelMesh != null)
+			selectLevel(focal, pixels);
+		return true;
+	}
+
+	/**
+	 * @param s sphere {x, y, z, r} in this object's coordinates
+	 * @return radius in pixels of s transformed by updatedTransform and 
+	 * projected, infinite if the eye is inside
+	 */
+	private double projectedRadius(double s[], int focal) {
+		double z = updatedTransform.transformZ(s[0], s[1], s[2]);
+		double r = s[3] * updatedTransform.maxScale();
+		if (z <= r)
+			return Double.POSITIVE_INFINITY;
+		return focal * r / z;
+	}
+
+	/**
+	 * @param lod select the round primitives tessellation from their size on 
+	 * screen and skip the subtrees smaller than a pixel, 
+	 * applies when set on the toplevel object
+	 */
+	public void setLevelOfDetail(boolean lod) {
+		levelOfDetail = lod;
+	}
+
+	public boolean isLevelOfDetail() {
+		return levelOfDetail;
+	}
+
+	/**
+	 * @param budget facets in view per frame the levels of detail are 
+	 * coarsened to fit, 0 for no budget. Applies when set on the toplevel object.
+	 */
+	public void setFacetBudget(int budget) {
+		facetBudget = budget;
+	}
+
+	public int getFacetBudget() {
+		return facetBudget;
+	}
+
+	/**
+	 * @return facets of the subtree left in view by the last update
+	 */
+	private int countFacetsInView() {
+		int i, n;
+		if (outOfView)
+			return 0;
+		n = nFacet;
+		for (i = 0; i < nChild; i++)
+			n += child[i].countFacetsInView();
+		return n;
+	}
+
+	/**
+	 * @brief counts the facets of the subtree again after level changes
+	 * @return nFacetTotal
+	 */
+	private int countFacets() {
+		int i;
+		nFacetTotal = nFacet;
+		for (i = 0; i < nChild; i++)
+			nFacetTotal += child[i].countFacets();
+		facetListChanged = false;
+		return nFacetTotal;
+	}
+
+	/**
+	 * 
+	 * @param obj an Object3D
+	 * @return this Object3D
+	 */
+	public Object3D addChild(Object3D obj) {
+		int i;
+		Object3D[] prevChild = child;
+		child = new Object3D[nChild + 1];
+		for (i = 0; i < nChild; i++) {
+			child[i] = prevChild[i];
+		}
+		child[nChild] = obj;
+		obj.parent = this;
+		obj.changed = true;
+		obj.invalidateWorld();
+		invalidateBounds();
+		if (obj.color == null)
+			obj.color = this.color;
+		nChild++;
+		return this;
+	}
+
+	public Object3D getChild(int i) {
+		if (child == null)
+			return null;
+		return child[i];
+	}
+
+	/**
+	 * @brief Builds a set of facets attached to the toplevel object,
+	 * recursively descends on the children.
+	 * 
+	 * @param facetList the global facet list
+	 * @param startIndex index in the list where to add the current object facets
+	 * @return index where the next object will add its facets
+	 */
+	private int buildFacetList(PolygonEdgeIndexes[] facetList, int startIndex) {
+		int i;
+		for (i = 0; i < nFacet; i++) {
+			facetList[startIndex++] = facet[i];
+		}
+		for (i = 0; i < nChild; i++) {
+			startIndex = child[i].buildFacetList(facetList, startIndex);
+		}
+		// if this was a toplevel object at some point, but not anymore,  
+		// drop the previous global facet list.
+		if (parent != null)
+			facetTotal = null;
+		return startIndex;
+	}
+
+	/**
+	 * @return the facet list sort strategy
+	 */
+	public DepthSorter getDepthSorter() {
+		return depthSorter;
+	}
+
+	/**
+	 * @param depthSorter the facet list sort strategy, 
+	 * null for an IncrementalDepthSorter
+	 */
+	public void setDepthSorter(DepthSorter depthSorter) {
+		this.depthSorter = depthSorter;
+	}
+
+	/**
+	 * @param bsp paint the facets in the order of a BSP tree, built once for
+	 * the facets and the children transformations of the first update: 
+	 * for static scenes. Levels of detail are not selected meanwhile,
+	 * and the tree projects the facets in place of their meshes.
+	 */
+	public void setBspOrdering(boolean bsp) {
+		int i;
+		bspOrdering = bsp;
+		bspTree = null;
+		for (i = 0; i < nChild; i++)
+			child[i].setBspOrdering(bsp);
+	}
+
+	public boolean isBspOrdering() {
+		return bspOrdering;
+	}
+
+	/**
+	 * @return the BSP tree of the last update, null if the facets were sorted
+	 */
+	public BspTree getBspTree() {
+		return bspTree;
+	}
+
+	private void sortFacetTotal() {
+		if (depthSorter == null)
+			depthSorter = new IncrementalDepthSorter();
+		depthSorter.sort(facetTotal, nVisible);
+	}
+
+	/**
+	 * @param parallel update sibling subtrees and large meshes as fork/join 
+	 * tasks, scenes with fewer than PARALLEL_UPDATE_MIN vertices stay serial.
+	 */
+	public void setParallelUpdate(boolean parallel) {
+		parallelUpdate = parallel;
+	}
+
+	public boolean isParallelUpdate() {
+		return parallelUpdate;
+	}
+
+	/**
+	 * @brief Forces the next update to transform this subtree again, 
+	 * after changes the object could not track.
+	 */
+	public void invalidate() {
+		changed = true;
+		updatedMesh = null;
+		invalidateBounds();
+	}
+
+	/**
+	 * @brief the transformation changed: update this subtree and the 
+	 * parent's bounding sphere
+	 */
+	private void transformationChanged() {
+		Object3D o;
+		changed = true;
+		invalidateWorld();
+		if (parent != null) {
+			parent.invalidateBounds();
+			// the facets moved in the toplevel coordinates
+			for (o = parent; o.parent != null; o = o.parent)
+				;
+			o.bspTree = null;
+		}
+	}
+
+	/**
+	 * @brief Combined transformation from this object's coordinates to the 
+	 * model coordinates, those of the toplevel object's parent. Computed once 
+	 * after a transformation changed in the chain of parents, the camera 
+	 * moves leaving it unchanged. Not to be called from concurrent tasks.
+	 * @return the world transformation
+	 */
+	public Affine3D getWorldTransform() {
+		if (worldValid)
+			return worldTransform;
+		if (worldTransform == null)
+			worldTransform = new Affine3D();
+		if (parent != null)
+			Affine3D.mulInto(parent.getWorldTransform(), transformation, worldTransform);
+		else
+			worldTransform.set(transformation);
+		worldValid = true;
+		return worldTransform;
+	}
+
+	/**
+	 * @brief this subtree's world transformations are out of date, 
+	 * those below an object being valid only if its own is
+	 */
+	private void invalidateWorld() {
+		int i;
+		if (!worldValid)
+			return;
+		worldValid = false;
+		for (i = 0; i < nChild; i++)
+			child[i].invalidateWorld();
+	}
+
+	/**
+	 * @brief this subtree's bounding sphere and its ancestors' are out of date
+	 */
+	private void invalidateBounds() {
+		Object3D o;
+		for (o = this; o != null && o.boundValid; o = o.parent)
+			o.boundValid = false;
+	}
+
+	/**
+	 * @param culling skip the subtrees outside of the view, 
+	 * applies when set on the toplevel object
+	 */
+	public void setFrustumCulling(boolean culling) {
+		frustumCulling = culling;
+	}
+
+	public boolean isFrustumCulling() {
+		return frustumCulling;
+	}
+
+	/**
+	 * @param culling skip the subtrees hidden behind the largest objects 
+	 * in view, with facets drawn without a BSP tree. 
+	 * Applies when set on the toplevel object.
+	 */
+	public void setOcclusionCulling(boolean culling) {
+		occlusionCulling = culling;
+	}
+
+	public boolean isOcclusionCulling() {
+		return occlusionCulling;
+	}
+
+	/**
+	 * @return the occlusion buffer of the last update, null without occluders
+	 */
+	public OcclusionBuffer getOcclusionBuffer() {
+		return occlusion != null && occlusion.getNPolygon() > 0 ? occlusion : null;
+	}
+
+	/**
+	 * @brief Sphere bounding this object's mesh and its children's subtrees, 
+	 * in this object's coordinates, rebuilt after a change in the subtree.
+	 * @return {x, y, z, r}, r < 0 for an empty subtree
+	 */
+	public double[] getBoundingSphere() {
+		int i;
+		double s[], x, y, z, r;
+		Affine3D a = null;
+		if (boundValid && (mesh == null || (mesh == boundMesh && mesh.getModCount() == boundModCount)))
+			return bound;
+		bound[3] = -1;
+		if (mesh != null) {
+			s = mesh.getBoundingSphere();
+			System.arraycopy(s, 0, bound, 0, 4);
+			boundMesh = mesh;
+			boundModCount = mesh.getModCount();
+		}
+		for (i = 0; i < nChild; i++) {
+			s = child[i].getBoundingSphere();
+			if (s[3] < 0)
+				continue;
+			if (a == null)
+				a = new Affine3D();
+			a.set(child[i].transformation);
+			x = a.transformX(s[0], s[1], s[2]);
+			y = a.transformY(s[0], s[1], s[2]);
+			z = a.transformZ(s[0], s[1], s[2]);
+			r = s[3] * a.maxScale();
+			mergeSphere(bound, x, y, z, r);
+		}
+		boundValid = true;
+		return bound;
+	}
+
+	/**
+	 * @brief bound = smallest sphere enclosing bound and the sphere (x, y, z, r)
+	 */
+	private static void mergeSphere(double bound[], double x, double y, double z, double r) {
+		double dx, dy, dz, d, rMerged;
+		if (bound[3] < 0) {
+			bound[0] = x; bound[1] = y; bound[2] = z; bound[3] = r;
+			return;
+		}
+		dx = x - bound[0];
+		dy = y - bound[1];
+		dz = z - bound[2];
+		d = Math.sqrt(dx * dx + dy * dy + dz * dz);
+		if (d + r <= bound[3])
+			return;
+		if (d + bound[3] <= r) {
+			bound[0] = x; bound[1] = y; bound[2] = z; bound[3] = r;
+			return;
+		}
+		rMerged = (d + r + bound[3]) / 2;
+		bound[0] += dx * (rMerged - bound[3]) / d;
+		bound[1] += dy * (rMerged - bound[3]) / d;
+		bound[2] += dz * (rMerged - bound[3]) / d;
+		bound[3] = rMerged;
+	}
+
+	/**
+	 * @brief Tests the subtree bounding sphere, transformed by updatedTransform,
+	 * against the planes of the view pyramid.
+	 * @return VIEW_OUTSIDE, VIEW_INSIDE or VIEW_PARTIAL
+	 */
+	private int viewTest(int focal, int screenX, int screenY) {
+		double s[] = getBoundingSphere();
+		double x, y, z, r, hx = screenX / 2, hy = screenY / 2;
+		double nx = Math.sqrt(focal * focal + hx * hx), ny = Math.sqrt(focal * focal + hy * hy);
+		double dLeft, dRight, dTop, dBottom;
+		if (s[3] < 0)
+			return VIEW_OUTSIDE;
+		x = updatedTransform.transformX(s[0], s[1], s[2]);
+		y = updatedTransform.transformY(s[0], s[1], s[2]);
+		z = updatedTransform.transformZ(s[0], s[1], s[2]);
+		r = s[3] * updatedTransform.maxScale();
+		// signed distances to the planes, positive outside
+		dRight = (focal * x - hx * z) / nx;
+		dLeft = (-focal * x - hx * z) / nx;
+		dTop = (focal * y - hy * z) / ny;
+		dBottom = (-focal * y - hy * z) / ny;
+		if (z <= -r || dRight >= r || dLeft >= r || dTop >= r || dBottom >= r)
+			return VIEW_OUTSIDE;
+		if (z > r && dRight < -r && dLeft < -r && dTop < -r && dBottom < -r)
+			return VIEW_INSIDE;
+		return VIEW_PARTIAL;
+	}
+
+	/**
+	 * @brief Leaves the subtree out of the update and painting. 
+	 * It will be transformed again once back in view.
+	 */
+	private void setOutOfView() {
+		int i;
+		outOfView = true;
+		updatedMesh = null;
+		for (i = 0; i < nChild; i++) {
+			child[i].changed = true;
+			child[i].setOutOfView();
+		}
+	}
+
+	/**
+	 * @brief Tests the screen rectangle bounding the subtree sphere, 
+	 * transformed by updatedTransform, against the occlusion buffer.
+	 * @return true if the occluders hide the whole subtree
+	 */
+	private boolean occluded(OcclusionBuffer occluders, int focal, int screenX, int screenY) {
+		double s[] = getBoundingSphere();
+		double x, y, z, r, near, far, x0 = screenX / 2, y0 = screenY / 2;
+		if (s[3] < 0)
+			return false;
+		x = updatedTransform.transformX(s[0], s[1], s[2]);
+		y = updatedTransform.transformY(s[0], s[1], s[2]);
+		z = updatedTransform.transformZ(s[0], s[1], s[2]);
+		r = s[3] * updatedTransform.maxScale();
+		near = z - r;
+		far = z + r;
+		if (near < Mesh.Z_NEAR)
+			return false;
+		// the sphere points farthest on screen are the nearest or the farthest ones
+		return occluders.hides(x0 + focal * (x - r) / (x - r < 0 ? near : far), 
+				y0 - focal * (y + r) / (y + r > 0 ? near : far), 
+				x0 + focal * (x + r) / (x + r > 0 ? near : far), 
+				y0 - focal * (y - r) / (y - r < 0 ? near : far), near);
+	}
+
+	/**
+	 * @param parentChanged the parent's updatedTransform changed this frame
+	 * @return true if updatedTransform changed
+	 */
+	private boolean updateTransform(boolean parentChanged) {
+		if (!parentChanged && !changed)
+			return false;
+		if (parent != null)
+			Affine3D.mulInto(parent.updatedTransform, transformation, updatedTransform);
+		else if (view != null)
+			Affine3D.mulInto(view, transformation, updatedTransform);
+		else
+			updatedTransform.set(transformation);
+		changed = false;
+		return true;
+	}
+
+	/**
+	 * @return false if the BSP tree of the toplevel object projects 
+	 * the facets, and no line of this mesh is drawn
+	 */
+	private boolean projected() {
+		return !bspOrdering || drawMode != DRAW_FACETS;
+	}
+
+	/**
+	 * @return true if the transformed mesh was computed for other vertices 
+	 * or another projection
+	 */
+	private boolean meshChanged(int focal, int screenX, int screenY) {
+		return mesh != updatedMesh || mesh.getModCount() != updatedModCount 
+			|| focal != updatedFocal || screenX != updatedScreenX || screenY != updatedScreenY;
+	}
+
+	private void meshUpdated(int focal, int screenX, int screenY) {
+		updatedMesh = mesh;
+		updatedModCount = mesh.getModCount();
+		updatedFocal = focal;
+		updatedScreenX = screenX;
+		updatedScreenY = screenY;
+		facetsValid = false;
+	}
+
+	/**
+	 * @brief Transforms and projects the meshes of the subtree, 
+	 * skipping those whose transformation, vertices and projection 
+	 * did not change since the last update, and those out of the view.
+	 * @param lodPixels wanted segment length of the levels of detail, 0 without
+	 * @param occluders occlusion buffer the subtrees are tested against, null without
+	 * @param parentChanged the parent's updatedTransform changed this frame
+	 * @param testView the parent's subtree is not entirely in the view
+	 */
+	private int updateWireframe(int focal, int screenX, int screenY, double lodPixels, 
+			OcclusionBuffer occluders, boolean parentChanged, boolean testView) {
+		int i, nEdge, view;
+		boolean moved = updateTransform(parentChanged);
+		if (testView) {
+			view = viewTest(focal, screenX, screenY);
+			if (view == VIEW_OUTSIDE) {
+				setOutOfView();
+				return 0;
+			}
+			testView = view == VIEW_PARTIAL;
+		}
+		if (lodPixels > 0 && !selectDetail(focal, lodPixels)) {
+			setOutOfView();
+			return 0;
+		}
+		if (occluders != null && occluded(occluders, focal, screenX, screenY)) {
+			setOutOfView();
+			return 0;
+		}
+		outOfView = false;
+		nEdge = 0;
+		for (i = 0; i < nChild; i++) {
+			nEdge += child[i].updateWireframe(focal, screenX, screenY, lodPixels, occluders, moved, testView);
+		}
+		if (!projected()) {
+			updatedMesh = null;
+		} else if (mesh.getNEdge() > 0 && (moved || meshChanged(focal, screenX, screenY))) {
+			mesh.transformProject(updatedTransform, focal, screenX, screenY);
+			meshUpdated(focal, screenX, screenY);
+		}
+		return nEdge + mesh.getNEdge();
+	}
+
+	private void updateFacets(int focal, int screenX, int screenY) {
+		int i;
+		if (outOfView)
+			return;
+		for (i = 0; i < nChild; i++) {
+			child[i].updateFacets(focal, screenX, screenY);
+		}
+		if (facetsValid)
+			return;
+		prepareCulling();
+		for (i = 0; i < nFacet; i++) {
+			facet[i].updatePolygon();
+		}
+		countCulled();
+		facetsValid = true;
+	}
+
+	/**
+	 * @param culling skip the facets facing away from the viewer, 
+	 * for closed meshes only
+	 */
+	public void setBackFaceCulling(boolean culling) {
+		backFaceCulling = culling;
+		facetsValid = false;
+	}
+
+	public boolean isBackFaceCulling() {
+		return backFaceCulling;
+	}
+
+	/**
+	 * @brief Sets cullSign before the facet polygons update, 
+	 * and the facet windings if the mesh changed
+	 */
+	private void prepareCulling() {
+		cullSign = 0;
+		if (!backFaceCulling || nFacet == 0)
+			return;
+		if (mesh != windingMesh || mesh.getModCount() != windingModCount) {
+			updateWindings();
+			windingMesh = mesh;
+			windingModCount = mesh.getModCount();
+		}
+		cullSign = updatedTransform.det() < 0 ? -1 : 1;
+	}
+
+	/**
+	 * @brief Orients the facets against the mesh center
+	 */
+	protected void updateWindings() {
+		int i;
+		double cx = 0, cy = 0, cz = 0, n;
+		n = mesh.getNVertex();
+		for (i = 0; i < n; i++) {
+			cx += mesh.getX(i);
+			cy += mesh.getY(i);
+			cz += mesh.getZ(i);
+		}
+		for (i = 0; i < nFacet; i++)
+			facet[i].updateWinding(cx / n, cy / n, cz / n);
+	}
+
+	protected void countCulled() {
+		int i;
+		nCulled = 0;
+		for (i = 0; i < nFacet; i++) {
+			if (!facet[i].visible)
+				nCulled++;
+		}
+	}
+
+	/**
+	 * @brief Stable partition of facetTotal, the visible facets first
+	 */
+	private void cullFacetTotal() {
+		int i, j;
+		PolygonEdgeIndexes f;
+		nVisible = 0;
+		for (i = 0; i < nFacetTotal; i++) {
+			if (facetTotal[i].visible && !facetTotal[i].obj.outOfView)
+				nVisible++;
+		}
+		if (nVisible == nFacetTotal)
+			return;
+		if (culledFacets == null || culledFacets.length < nFacetTotal - nVisible)
+			culledFacets = new PolygonEdgeIndexes[nFacetTotal - nVisible];
+		for (i = 0, j = 0; i < nFacetTotal; i++) {
+			f = facetTotal[i];
+			if (f.visible && !f.obj.outOfView)
+				facetTotal[i - j] = f;
+			else
+				culledFacets[j++] = f;
+		}
+		System.arraycopy(culledFacets, 0, facetTotal, nVisible, j);
+	}
+
+	/**
+	 * @brief updateWireframe then updateFacets on this subtree, the children 
+	 * and this object's mesh being updated concurrently
+	 */
+	private void updateParallel(boolean parentChanged, boolean testView, boolean facets, 
+			double lodPixels, OcclusionBuffer occluders, int focal, int screenX, int screenY) {
+		ForkJoinTask<Void> children = null;
+		int view;
+		boolean moved = updateTransform(parentChanged);
+		if (testView) {
+			view = viewTest(focal, screenX, screenY);
+			if (view == VIEW_OUTSIDE) {
+				setOutOfView();
+				return;
+			}
+			testView = view == VIEW_PARTIAL;
+		}
+		if (lodPixels > 0 && !selectDetail(focal, lodPixels)) {
+			setOutOfView();
+			return;
+		}
+		if (occluders != null && occluded(occluders, focal, screenX, screenY)) {
+			setOutOfView();
+			return;
+		}
+		outOfView = false;
+		if (nChild > 0)
+			children = new UpdateTask(this, 0, nChild, moved, testView, facets, 
+					lodPixels, occluders, focal, screenX, screenY).fork();
+		if (!projected()) {
+			updatedMesh = null;
+		} else if (mesh.getNEdge() > 0 && (moved || meshChanged(focal, screenX, screenY))) {
+			mesh.transformProjectParallel(updatedTransform, focal, screenX, screenY);
+			meshUpdated(focal, screenX, screenY);
+		}
+		if (facets && nFacet > 0 && !facetsValid) {
+			prepareCulling();
+			new FacetTask(this, 0, nFacet).invoke();
+			countCulled();
+			facetsValid = true;
+		}
+		if (children != null)
+			children.join();
+	}
+
+	public void update(int focal, int screenX, int screenY) {
+		update(focal, screenX, screenY, null);
+	}
+
+	/**
+	 * @brief Updates the component tree seen from a camera: the world 
+	 * transformations being unchanged, only the transformations to the eye 
+	 * and the projections are computed again when the camera moves.
+	 * @param view camera transformation from the model coordinates 
+	 * to the eye's, null for none
+	 */
+	public void update(int focal, int screenX, int screenY, Matrix view) {
+		int pass;
+		setView(view);
+		// the tree orders the facets of one level of detail
+		boolean bsp = bspOrdering && drawMode == DRAW_FACETS;
+		boolean facets = (drawMode == DRAW_FACETS && !bsp) || drawMode == DRAW_ZBUFFER;
+		boolean budget = levelOfDetail && facetBudget > 0 && !bsp;
+		double lodPixels = levelOfDetail && !bsp ? LOD_PIXELS : 0;
+		// the subtrees behind the largest objects are left out of the update
+		OcclusionBuffer occluders = occlusionCulling && facets ? 
+				drawOccluders(focal, screenX, screenY) : null;
+		updatePass(focal, screenX, screenY, lodPixels, occluders, facets && !budget);
+		// coarser levels of detail until the facets in view fit the budget,
+		// the subtrees whose level did not change are not transformed again
+		for (pass = 0; budget && pass < LOD_BUDGET_PASSES && countFacetsInView() > facetBudget; pass++) {
+			lodPixels *= 2;
+			updatePass(focal, screenX, screenY, lodPixels, occluders, false);
+		}
+		if (budget && facets)
+			updatePass(focal, screenX, screenY, lodPixels, occluders, true);
+		if (facetListChanged && nFacetTotal > 0) {
+			countFacets();
+			if (facetTotal.length != nFacetTotal)
+				facetTotal = new PolygonEdgeIndexes[nFacetTotal];
+			buildFacetList(facetTotal, 0);
+			nVisible = nFacetTotal;
+			bspTree = null;
+		}
+		// the depth buffer orders the pixels
+		if (bsp && facetTotal != null) {
+			if (bspTree == null)
+				bspTree = new BspTree(this);
+			bspTree.order(focal, screenX, screenY);
+		} else if (drawMode == DRAW_FACETS && facetTotal != null) {
+			cullFacetTotal();
+			sortFacetTotal();
+		}
+	}
+
+	/**
+	 * @brief Keeps the camera transformation of the update, 
+	 * the component tree being transformed again if it moved
+	 */
+	private void setView(Matrix v) {
+		Affine3D swap;
+		if (v == null) {
+			if (view != null)
+				changed = true;
+			view = null;
+			return;
+		}
+		if (nextView == null)
+			nextView = new Affine3D();
+		nextView.set(v);
+		if (view != null && Arrays.equals(view.getCell(), nextView.getCell()))
+			return;
+		swap = view;
+		view = nextView;
+		nextView = swap;
+		changed = true;
+	}
+
+	/**
+	 * @brief one update of the component tree, serial or parallel
+	 * @param occluders occlusion buffer the subtrees are tested against, null without
+	 * @param facets update the facet polygons too
+	 */
+	private void updatePass(int focal, int screenX, int screenY, double lodPixels, 
+			OcclusionBuffer occluders, boolean facets) {
+		if (parallelUpdate && nVertexTotal >= PARALLEL_UPDATE_MIN) {
+			new UpdateTask(this, false, frustumCulling, facets, lodPixels, occluders, 
+					focal, screenX, screenY).invoke();
+		} else {
+			updateWireframe(focal, screenX, screenY, lodPixels, occluders, false, frustumCulling);
+			if (facets)
+				updateFacets(focal, screenX, screenY);
+		}
+	}
+
+	/**
+	 * @brief Draws the facets of the objects projected the largest, up to 
+	 * OCCLUDERS_MAX, in the occlusion buffer of this toplevel object. 
+	 * The occluders are transformed from their world transformations and 
+	 * the camera's, before the update of the component tree.
+	 * @return the occlusion buffer, null if no object is large enough
+	 */
+	private OcclusionBuffer drawOccluders(int focal, int screenX, int screenY) {
+		int i, n;
+		if (OCCLUDERS_MAX <= 0)
+			return null;
+		if (occluder == null || occluder.length != OCCLUDERS_MAX) {
+			occluder = new Object3D[OCCLUDERS_MAX];
+			occluderPixels = new double[OCCLUDERS_MAX];
+			occluderTransform = new Affine3D[OCCLUDERS_MAX];
+			for (i = 0; i < OCCLUDERS_MAX; i++)
+				occluderTransform[i] = new Affine3D();
+			occluderEye = new Affine3D();
+		}
+		n = addOccluders(this, 0, focal);
+		if (n == 0)
+			return null;
+		if (occlusion == null)
+			occlusion = new OcclusionBuffer();
+		occlusion.clear(screenX, screenY);
+		for (i = 0; i < n; i++) {
+			drawOccluder(occluder[i], occluderTransform[i], focal, screenX, screenY);
+			occluder[i] = null;
+		}
+		return occlusion;
+	}
+
+	/**
+	 * @brief Keeps the objects of the subtree centered in front of the near 
+	 * plane, projected larger than OCCLUDER_PIXELS, in the occluders of the 
+	 * toplevel object, the largest first.
+	 * @param top the toplevel object
+	 * @param n occluders kept so far
+	 * @return occluders kept
+	 */
+	private int addOccluders(Object3D top, int n, int focal) {
+		int i;
+		double s[], z, r;
+		Affine3D eye = top.occluderEye;
+		// the world transformations are kept from one frame to the next
+		if (top.view != null)
+			Affine3D.mulInto(top.view, getWorldTransform(), eye);
+		else
+			eye.set(getWorldTransform());
+		// subtrees too small or behind the eye
+		s = getBoundingSphere();
+		z = eye.transformZ(s[0], s[1], s[2]);
+		r = s[3] * eye.maxScale();
+		if (s[3] < 0 || z + r < Mesh.Z_NEAR || (z > r && r * focal < OCCLUDER_PIXELS * z))
+			return n;
+		if (nFacet > 0) {
+			s = mesh.getBoundingSphere();
+			z = eye.transformZ(s[0], s[1], s[2]);
+			r = s[3] * eye.maxScale();
+			if (z >= Mesh.Z_NEAR && r * focal >= OCCLUDER_PIXELS * z)
+				n = top.insertOccluder(this, eye, r * focal / z, n);
+		}
+		for (i = 0; i < nChild; i++)
+			n = child[i].addOccluders(top, n, focal);
+		return n;
+	}
+
+	/**
+	 * @brief Inserts o in the occluders by decreasing size, 
+	 * the smallest one being dropped once there are OCCLUDERS_MAX
+	 * @param eye o's transformation to the eye
+	 * @return occluders kept
+	 */
+	private int insertOccluder(Object3D o, Affine3D eye, double pixels, int n) {
+		int i;
+		Affine3D t;
+		if (n == occluder.length && pixels <= occluderPixels[n - 1])
+			return n;
+		if (n < occluder.length)
+			n++;
+		t = occluderTransform[n - 1];
+		for (i = n - 1; i > 0 && occluderPixels[i - 1] < pixels; i--) {
+			occluder[i] = occluder[i - 1];
+			occluderPixels[i] = occluderPixels[i - 1];
+			occluderTransform[i] = occluderTransform[i - 1];
+		}
+		occluder[i] = o;
+		occluderPixels[i] = pixels;
+		occluderTransform[i] = t.set(eye);
+		return n;
+	}
+
+	/**
+	 * @brief Projects the vertices of o as Mesh does, and draws the facets 
+	 * in front of the near plane in the occlusion buffer.
+	 * @param eye o's transformation to the eye
+	 */
+	private void drawOccluder(Object3D o, Affine3D eye, int focal, int screenX, int screenY) {
+		int i, j, n, v, index[], edges[][];
+		double x, y, z, zMax, zMin;
+		double x0 = screenX / 2, y0 = screenY / 2;
+		Mesh m = o.mesh;
+		PolygonEdgeIndexes f;
+		n = m.getNVertex();
+		if (occluderX == null || occluderX.length < n) {
+			occluderX = new int[n];
+			occluderY = new int[n];
+			occluderZ = new double[n];
+		}
+		for (i = 0; i < n; i++) {
+			x = m.getX(i);
+			y = m.getY(i);
+			z = m.getZ(i);
+			occluderZ[i] = eye.transformZ(x, y, z);
+			if (occluderZ[i] < Mesh.Z_NEAR)
+				continue;
+			occluderX[i] = (int) (x0 + eye.transformX(x, y, z) * focal / occluderZ[i]);
+			occluderY[i] = (int) (y0 - eye.transformY(x, y, z) * focal / occluderZ[i]);
+		}
+		edges = m.edge;
+		index = occluderIndex;
+		for (i = 0; i < o.nFacet; i++) {
+			f = o.facet[i];
+			if (index == null || index.length < f.nEdge)
+				index = occluderIndex = new int[f.nEdge];
+			zMax = 0;
+			zMin = Double.MAX_VALUE;
+			for (j = 0; j < f.nEdge; j++) {
+				v = edges[f.edge[j]][0];
+				index[j] = v;
+				zMax = Math.max(zMax, occluderZ[v]);
+				zMin = Math.min(zMin, occluderZ[v]);
+			}
+			// the points behind the near plane are not projected
+			if (zMin >= Mesh.Z_NEAR)
+				occlusion.addPolygon(occluderX, occluderY, index, f.nEdge, zMax);
+		}
+	}
+
+	/**
+	 * @brief Colors painted facets get from darkest to brightest, 
+	 * rebuilt only when the color or the number of facets changes.
+	 * @return the shading ramp
+	 */
+	private Color[] shadeRamp() {
+		int i, n = Math.max(nFacet, 1);
+		if (shade == null || shade.length != n || shadeColor != color) {
+			shade = new Color[n];
+			for (i = 0; i < n; i++)
+				shade[i] = colorDelta(color, (int) (i * brightIncLocal) - (BRIGHT_SCALE / 2));
+			shadeColor = color;
+		}
+		return shade;
+	}
+
+	private Color colorDelta(Color baseColor, int brightDelta) {
+		int rgb, r, g, b;
+		rgb = baseColor.getRGB();
+		r = Math.max(Math.min(((rgb & 0x00FF0000) >> 16) + brightDelta,255),0);
+		g = Math.max(Math.min(((rgb & 0x0000FF00) >> 8) + brightDelta,255),0);
+		b = Math.max(Math.min(((rgb & 0x000000FF)) + brightDelta,255),0);
+		return new Color(r, g, b);
+	}
+	
+	public void paint(Graphics graphics) {
+		int i, nList;
+		Object3D o;
+		Color ramp[];
+		PolygonEdgeIndexes list[], f;
+		boolean bsp;
+		// culled facets keep their rank in the shading ramp
+		brightIndex = nCulled;
+		for (i = 0; i < nChild; i++)
+			child[i].paint(graphics);
+		if (drawMode == DRAW_ZBUFFER && facetTotal != null && graphics instanceof DepthGraphics) {
+			paintDepth((DepthGraphics) graphics);
+		} else if (drawMode != DRAW_WIREFRAME && facetTotal != null) {
+			int nPolygon = 0, nPoint = 0, n;
+			Polygon polygon;
+			bsp = bspOrdering && bspTree != null;
+			list = bsp ? bspTree.getOrder() : facetTotal;
+			nList = bsp ? bspTree.getNOrder() : nVisible;
+			if (batchOffsets == null || batchOffsets.length < nList + 1) {
+				batchOffsets = new int[Math.max(nList, nFacetTotal) + 1];
+				batchRGB = new int[batchOffsets.length - 1];
+			}
+			for (i = 0; i < nList; i++) {
+				f = list[i];
+				o = f.shadeObject();
+				ramp = o.shadeRamp();
+				batchRGB[nPolygon] = ramp[Math.min(bsp ? bspTree.getRank()[i] : o.brightIndex++, ramp.length - 1)].getRGB();
+				polygon = f.polygon;
+				n = polygon.getnEdge();
+				if (batchX == null || batchX.length < nPoint + n)
+					growBatch(nPoint + n);
+				System.arraycopy(polygon.getxP(), 0, batchX, nPoint, n);
+				System.arraycopy(polygon.getyP(), 0, batchY, nPoint, n);
+				batchOffsets[nPolygon++] = nPoint;
+				nPoint += n;
+			}
+			batchOffsets[nPolygon] = nPoint;
+			graphics.fillPolygons(batchX, batchY, batchOffsets, batchRGB, nPolygon);
+		} else if (drawMode == DRAW_WIREFRAME && !outOfView) {
+			paintLines(graphics, 0, mesh.getNEdge(), color);
+		}
+	}
+
+	/**
+	 * @brief draws the lines of the mesh edges [from, to[ left by clipping
+	 */
+	protected void paintLines(Graphics graphics, int from, int to, Color lineColor) {
+		int i, nLine = 0;
+		int lines[][] = mesh.getLines();
+		if (lineBatch == null || lineBatch.length < (to - from) * 4)
+			lineBatch = new int[(to - from) * 4];
+		for (i = from; i < to; i++) {
+			if (lines[i][4] >= 0) {
+				lineBatch[nLine * 4] = lines[i][0];
+				lineBatch[nLine * 4 + 1] = lines[i][1];
+				lineBatch[nLine * 4 + 2] = lines[i][2];
+				lineBatch[nLine * 4 + 3] = lines[i][3];
+				nLine++;
+			}
+		}
+		graphics.setColor(lineColor);
+		graphics.drawLines(lineBatch, nLine);
+	}
+
+	/**
+	 * @brief Paints the facets in the component tree order with a depth test, 
+	 * clipped facets with their interpolated 1/z. Without a painting order, 
+	 * a facet's shade is its rank in its object.
+	 */
+	private void paintDepth(DepthGraphics graphics) {
+		if (batchOffsets == null || batchOffsets.length < nFacetTotal + 1) {
+			batchOffsets = new int[nFacetTotal + 1];
+			batchRGB = new int[nFacetTotal];
+		}
+		nBatchPolygon = nBatchPoint = 0;
+		batchDepth(this);
+		batchOffsets[nBatchPolygon] = nBatchPoint;
+		graphics.fillPolygonsDepth(batchX, batchY, batchIZ, batchOffsets, batchRGB, nBatchPolygon);
+	}
+
+	/**
+	 * @brief adds this subtree's visible facets to the batch of the toplevel object
+	 */
+	private void batchDepth(Object3D top) {
+		int i, j, n, nPoint, edge[];
+		double tz[];
+		Color ramp[];
+		PolygonEdgeIndexes f;
+		Object3D o;
+		if (outOfView)
+			return;
+		tz = mesh.getTransformedZ();
+		for (i = 0; i < nFacet; i++) {
+			f = facet[i];
+			if (!f.visible)
+				continue;
+			n = f.polygon.getnEdge();
+			nPoint = top.nBatchPoint;
+			if (top.batchX == null || top.batchX.length < nPoint + n)
+				top.growBatch(nPoint + n);
+			edge = f.edge;
+			if (f.clipped) {
+				System.arraycopy(f.izClip, 0, top.batchIZ, nPoint, n);
+			} else {
+				for (j = 0; j < n; j++)
+					top.batchIZ[nPoint + j] = (float) (1 / tz[mesh.edge[edge[j]][0]]);
+			}
+			System.arraycopy(f.polygon.getxP(), 0, top.batchX, nPoint, n);
+			System.arraycopy(f.polygon.getyP(), 0, top.batchY, nPoint, n);
+			o = f.shadeObject();
+			ramp = o.shadeRamp();
+			j = o == this ? i : f.shadeRank;
+			top.batchRGB[top.nBatchPolygon] = ramp[Math.min(j, ramp.length - 1)].getRGB();
+			top.batchOffsets[top.nBatchPolygon++] = nPoint;
+			top.nBatchPoint = nPoint + n;
+		}
+		for (i = 0; i < nChild; i++)
+			child[i].batchDepth(top);
+	}
+
+	/**
+	 * @brief grows the facet batch point arrays, keeping their content
+	 * @param nPoint number of points needed
+	 */
+	private void growBatch(int nPoint) {
+		int size = Math.max(nPoint, batchX == null ? 64 : batchX.length * 2);
+		int x[] = new int[size], y[] = new int[size];
+		float iz[] = new float[size];
+		if (batchX != null) {
+			System.arraycopy(batchX, 0, x, 0, batchX.length);
+			System.arraycopy(batchY, 0, y, 0, batchY.length);
+			System.arraycopy(batchIZ, 0, iz, 0, batchIZ.length);
+		}
+		batchX = x;
+		batchY = y;
+		batchIZ = iz;
+	}
+
+	/**
+	 * @param d draw mode: DRAW_WIREFRAME, DRAW_FACETS or DRAW_ZBUFFER
+	 * If there are no facets on this object, draw mode is forced to wireframe.
+	 */
+	public void setDrawMode(int d) {
+		int i;
+		drawMode = d;
+		if (nFacetTotal == 0 && mesh != null)
+			drawMode = DRAW_WIREFRAME;
+		for (i = 0; i < nChild; i++)
+			child[i].setDrawMode(d);
+	}
+
+	/**
+	 * @brief Selects the first vertex where xy coordinates in the mesh
+	 * wireframe are closer than r to xy parameters.
+	 * @param x
+	 * @param y
+	 * @param r
+	 * @return index of the selected vertex in the selected object
+	 */
+	public int selectVertex(int x, int y, int r) {
+		int i;
+		this.selectedVertex=-1;
+		this.selectedObject=null;
+//		 select vertex on this object mesh
+		if (mesh != null && !outOfView) { 
+			this.selectedVertex=mesh.selectVertex(x,y,r);
+			if (this.selectedVertex!=-1) {
+				this.selectedObject=this;
+				return this.selectedVertex;
+			}
+		}
+//		 look for a vertex on children's meshes
+		for (i = 0; i < nChild; i++) {
+			this.selectedVertex=child[i].selectVertex(x,y,r);
+			if (this.selectedVertex!=-1) {
+				this.selectedObject=child[i].selectedObject;					
+				return this.selectedVertex;
+			}
+		}
+		return this.selectedVertex;
+	}
+	
+	public org.yriarte.mini3D.Vector3D getSelectedVertex() {
+		if (this.selectedVertex!=-1)
+			return this.selectedObject.getMesh().getVertex()[this.selectedVertex];
+		return null;
+	}
+	
+	/**
+	 * @brief Compiles the component tree of this toplevel object into flat
+	 * arrays, updated by linear loops, until the tree changes.
+	 * @return the compiled scene
+	 */
+	public CompiledScene compile() {
+		return new CompiledScene(this);
+	}
+
+	/**
+	 * @return [[xmin,xmax],[ymin,ymax],[zmin,zmax]]
+	 */
+	public Matrix calculateBounds() {
+		Matrix mxXyYzZ = mesh.calculateBounds();
+		for (int i = 0; i < nChild; i++) {
+			Matrix mChildBounds = child[i].calculateBounds();
+			for (int j=0; j<3; j++) {
+				mxXyYzZ.getCell()[j][0]=Math.min(mxXyYzZ.getCell()[j][0],mChildBounds.getCell()[j][0]);
+				mxXyYzZ.getCell()[j][1]=Math.max(mxXyYzZ.getCell()[j][1],mChildBounds.getCell()[j][1]);
+			}
+		}
+		return mxXyYzZ;
+	}
+	
+	
+	/**
+	 * @brief Parallel update of a subtree, or of the children [from, to[ of 
+	 * an object: ranges are split until they hold a single large subtree or 
+	 * fewer than PARALLEL_UPDATE_MIN vertices, updated serially.
+	 */
+	private static class UpdateTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private Object3D obj;
+		private int from, to;
+		private boolean subtree, parentChanged, testView, facets;
+		private double lodPixels;
+		private OcclusionBuffer occluders;
+		private int focal, screenX, screenY;
+
+		public UpdateTask(Object3D obj, boolean parentChanged, boolean testView, boolean facets, 
+				double lodPixels, OcclusionBuffer occluders, int focal, int screenX, int screenY) {
+			this(obj, 0, 0, parentChanged, testView, facets, lodPixels, occluders, 
+					focal, screenX, screenY);
+			subtree = true;
+		}
+
+		/**
+		 * @param parentChanged obj's updatedTransform changed this frame
+		 * @param testView obj's subtree is not entirely in the view
+		 */
+		public UpdateTask(Object3D obj, int from, int to, boolean parentChanged, boolean testView, 
+				boolean facets, double lodPixels, OcclusionBuffer occluders, 
+				int focal, int screenX, int screenY) {
+			this.obj = obj;
+			this.from = from;
+			this.to = to;
+			this.parentChanged = parentChanged;
+			this.testView = testView;
+			this.facets = facets;
+			this.lodPixels = lodPixels;
+			this.occluders = occluders;
+			this.focal = focal;
+			this.screenX = screenX;
+			this.screenY = screenY;
+		}
+
+		protected void compute() {
+			int i, nVertex = 0;
+			Object3D c;
+			if (subtree) {
+				obj.updateParallel(parentChanged, testView, facets, lodPixels, occluders, 
+						focal, screenX, screenY);
+				return;
+			}
+			for (i = from; i < to; i++)
+				nVertex += obj.child[i].nVertexTotal;
+			if (to - from > 1 && nVertex >= PARALLEL_UPDATE_MIN) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new UpdateTask(obj, from, mid, parentChanged, testView, facets, 
+						lodPixels, occluders, focal, screenX, screenY), 
+						new UpdateTask(obj, mid, to, parentChanged, testView, facets, 
+						lodPixels, occluders, focal, screenX, screenY));
+				return;
+			}
+			for (i = from; i < to; i++) {
+				c = obj.child[i];
+				if (c.nVertexTotal >= PARALLEL_UPDATE_MIN) {
+					c.updateParallel(parentChanged, testView, facets, lodPixels, occluders, 
+							focal, screenX, screenY);
+				} else {
+					c.updateWireframe(focal, screenX, screenY, lodPixels, occluders, parentChanged, testView);
+					if (facets)
+						c.updateFacets(focal, screenX, screenY);
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * @brief Parallel updatePolygon of the facets [from, to[ of an object
+	 */
+	private static class FacetTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private Object3D obj;
+		private int from, to;
+
+		public FacetTask(Object3D obj, int from, int to) {
+			this.obj = obj;
+			this.from = from;
+			this.to = to;
+		}
+
+		protected void compute() {
+			int i;
+			if (to - from > PARALLEL_FACETS) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new FacetTask(obj, from, mid), new FacetTask(obj, mid, to));
+				return;
+			}
+			for (i = from; i < to; i++)
+				obj.facet[i].updatePolygon();
+		}
+
+	}
+
+	/**
+	 * @brief The awt Polygon links the last point to the first.
+	 */
+	public class PolygonEdgeIndexes {
+
+		private Object3D obj;
+
+		private int z = 0;
+		private int nEdge = 0;
+		public int edge[] = null;
+
+		private Polygon polygon;
+		/** screen coordinates, reused by every updatePolygon() */
+		private int xP[], yP[];
+		private Polygon ownPolygon;
+		/** +1 or -1: sign of the outward normal for the points order, 0 if unknown */
+		private int winding = 0;
+		/** false if culled as facing away from the viewer, or clipped away */
+		private boolean visible = true;
+		/** clipped polygon: screen coordinates and 1/z of its points */
+		private boolean clipped = false;
+		private int xClip[] = null, yClip[] = null, vertexClip[] = null;
+		private float izClip[] = null;
+		private Polygon clipPolygon = null;
+		/** facet of a static batch: object whose shading it keeps and its rank there */
+		private Object3D shadeSource = null;
+		private int shadeRank;
+
+		public PolygonEdgeIndexes(Object3D o, int n) {
+			obj = o;
+			nEdge = n;
+			edge = new int[n];
+			z = 0;
+			xP = new int[n];
+			yP = new int[n];
+			polygon = ownPolygon = new Polygon(xP, yP, n);
+		}
+
+		/**
+		 * @brief facet sharing its edge indexes, the screen coordinates 
+		 * are allocated by the first updatePolygon()
+		 * @param edge edge indexes, shared with other facets: not to be changed
+		 */
+		public PolygonEdgeIndexes(Object3D o, int edge[]) {
+			obj = o;
+			nEdge = edge.length;
+			this.edge = edge;
+			z = 0;
+		}
+
+		public void updatePolygon() {
+			int i, v;
+			double zMin, zMax;
+			boolean inside = true;
+			Mesh m = obj.mesh;
+			int edges[][] = m.edge;
+			double tz[] = m.tz;
+			if (ownPolygon == null) {
+				xP = new int[nEdge];
+				yP = new int[nEdge];
+				ownPolygon = new Polygon(xP, yP, nEdge);
+			}
+			zMin = zMax = tz[edges[edge[0]][0]];
+			for (i = 0; i < nEdge; i++) {
+				v = edges[edge[i]][0];
+				xP[i] = m.scrX[v];
+				yP[i] = m.scrY[v];
+				if (zMin > tz[v])
+					zMin = tz[v];
+				if (zMax < tz[v])
+					zMax = tz[v];
+				if (inside && !m.onScreen(v))
+					inside = false;
+			}
+			polygon = ownPolygon;
+			clipped = false;
+			// the midpoint of the z range
+			z = (int) ((zMax + zMin) / 2);
+			visible = true;
+			if (obj.cullSign != 0 && winding != 0)
+				visible = facesViewer();
+			if (visible && (!inside || zMin < Mesh.Z_NEAR))
+				clip();
+		}
+
+		/**
+		 * @brief polygon = this facet clipped to the near plane and the screen
+		 */
+		private void clip() {
+			int i, n;
+			Mesh m = obj.mesh;
+			PolygonClipper clipper = CLIPPER.get();
+			if (vertexClip == null)
+				vertexClip = new int[nEdge];
+			for (i = 0; i < nEdge; i++)
+				vertexClip[i] = m.edge[edge[i]][0];
+			n = clipper.clipPolygon(m.tx, m.ty, m.tz, vertexClip, nEdge, Mesh.Z_NEAR, 
+					m.focal, m.screenX, m.screenY);
+			if (n == 0) {
+				visible = false;
+				return;
+			}
+			if (xClip == null || xClip.length < n) {
+				xClip = new int[n + 4];
+				yClip = new int[n + 4];
+				izClip = new float[n + 4];
+			}
+			System.arraycopy(clipper.getX(), 0, xClip, 0, n);
+			System.arraycopy(clipper.getY(), 0, yClip, 0, n);
+			System.arraycopy(clipper.getIZ(), 0, izClip, 0, n);
+			if (clipPolygon == null)
+				clipPolygon = new Polygon(xClip, yClip, n);
+			polygon = clipPolygon.set(xClip, yClip, n);
+			clipped = true;
+		}
+
+		/**
+		 * @brief Points in front of the eye keep their orientation once projected,
+		 * y being flipped on screen: the facet faces the viewer if its screen 
+		 * signed area has the sign of its winding.
+		 */
+		private boolean facesViewer() {
+			int i, j;
+			long area = 0;
+			double tz[] = obj.mesh.tz;
+			int edges[][] = obj.mesh.edge;
+			for (i = 0; i < nEdge; i++) {
+				if (tz[edges[edge[i]][0]] <= 0)
+					return true;
+				j = i + 1 < nEdge ? i + 1 : 0;
+				area += (long) xP[i] * yP[j] - (long) xP[j] * yP[i];
+			}
+			return area * winding * obj.cullSign > 0;
+		}
+
+		/**
+		 * @brief Orients the facet against the mesh center
+		 * @param cx mesh center x
+		 * @param cy mesh center y
+		 * @param cz mesh center z
+		 */
+		void updateWinding(double cx, double cy, double cz) {
+			int i, a, b;
+			double nx = 0, ny = 0, nz = 0, fx = 0, fy = 0, fz = 0, dot;
+			int edges[][] = obj.mesh.edge;
+			Mesh m = obj.mesh;
+			// Newell's normal of the polygon points
+			for (i = 0; i < nEdge; i++) {
+				a = edges[edge[i]][0];
+				b = edges[edge[(i + 1) % nEdge]][0];
+				nx += (m.getY(a) - m.getY(b)) * (m.getZ(a) + m.getZ(b));
+				ny += (m.getZ(a) - m.getZ(b)) * (m.getX(a) + m.getX(b));
+				nz += (m.getX(a) - m.getX(b)) * (m.getY(a) + m.getY(b));
+				fx += m.getX(a);
+				fy += m.getY(a);
+				fz += m.getZ(a);
+			}
+			dot = nx * (fx / nEdge - cx) + ny * (fy / nEdge - cy) + nz * (fz / nEdge - cz);
+			winding = dot > 0 ? 1 : (dot < 0 ? -1 : 0);
+		}
+
+		/**
+		 * @brief Makes this facet of a static batch shade as the source facet 
+		 * did in its object, and keep its orientation once baked.
+		 * @param source facet this one was copied from
+		 * @param rank index of source in its object facets
+		 * @param windingSign 1, -1 if the baked transformation is a mirror, 
+		 * 0 if the source object was not culled
+		 */
+		void batchedFrom(PolygonEdgeIndexes source, int rank, int windingSign) {
+			shadeSource = source.shadeObject();
+			shadeRank = source.shadeSource != null ? source.shadeRank : rank;
+			winding = source.winding * windingSign;
+		}
+
+		/**
+		 * @brief Makes this copy of a facet in a view shade as the source facet
+		 * @param source facet this one was copied from
+		 * @param shade stand-in for the object the source shades on,
+		 * null to shade on this facet's object
+		 */
+		void shadedAs(PolygonEdgeIndexes source, Object3D shade) {
+			shadeSource = shade;
+			shadeRank = source.shadeRank;
+		}
+
+		/**
+		 * @brief Orients this copy of a facet as the source facet
+		 * @param source facet this one was copied from
+		 * @param windingSign 1, -1 if the source transformation is a mirror,
+		 * 0 if the source object is not culled
+		 */
+		void orientedAs(PolygonEdgeIndexes source, int windingSign) {
+			winding = source.winding * windingSign;
+		}
+
+		/**
+		 * @return the object whose shading ramp colors this facet
+		 */
+		public Object3D shadeObject() {
+			return shadeSource != null ? shadeSource : obj;
+		}
+
+		/**
+		 * @return +1 or -1: sign of the outward normal for the points order, 0 if unknown
+		 */
+		int getWinding() {
+			return winding;
+		}
+
+		/**
+		 * @return the object whose mesh holds this facet
+		 */
+		public Object3D getObject() {
+			return obj;
+		}
+
+		/**
+		 * @return false if the last update culled this facet
+		 */
+		public boolean isVisible() {
+			return visible;
+		}
+
+		public void updatePolygon(int xP[], int yP[]) {
+			polygon = new Polygon(xP, yP, nEdge);
+		}
+
+		public void paint(Graphics g) {
+			g.fillPolygon(polygon);
+		}
+
+		/**
+		 * @return the depth of this facet, midpoint of its z range
+		 */
+		public int getZ() {
+			return z;
+		}
+
+	}
+	
+}
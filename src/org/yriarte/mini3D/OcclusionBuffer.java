@@ -0,0 +1,210 @@
+/* Copyright (c) 2010, Luc Yriarte
+ * All rights reserved.
+ * 
+ * @file OcclusionBuffer.java
+ * @author Luc Yriarte
+ * 
+ * License: BSD <http://www.opensource.org/licenses/bsd-license.php>
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted 
+ * provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright notice, this 
+ * list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright notice, this 
+ * list of conditions and the following disclaimer in the documentation and/or other materials 
+ * provided with the distribution.
+ *     * The name of Luc Yriarte may not be used to endorse or promote products derived 
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR 
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND 
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. 
+ * IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY 
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ * 
+ */
+
+package org.yriarte.mini3D;
+
+import java.util.Arrays;
+
+/**
+ * @brief Coarse depth raster of the occluders of a frame, in screen cells
+ * of CELL pixels. A cell keeps the depth of the nearest polygon covering it
+ * entirely, the farthest point of that polygon: what lies behind it in the
+ * whole cell is hidden. Convex polygons only, the others are left out.
+ * Written by one thread, then only read by the update tasks.
+ */
+public class OcclusionBuffer {
+
+	/** cell size in pixels */
+	public static int CELL = 8;
+	/** projected points are truncated to the pixel: covered cells keep this margin */
+	private static final int MARGIN = 1;
+
+	private int nCellX = 0, nCellY = 0;
+	/** depth of each cell, row by row */
+	private double depth[] = null;
+	/** number of polygons added since clear() */
+	private int nPolygon = 0;
+	/** {left, right} scratch of addPolygon */
+	private double span[] = new double[2];
+
+	public OcclusionBuffer() {
+		super();
+	}
+
+	/**
+	 * @brief Empties the raster, sized for the screen
+	 * @param screenX screen width
+	 * @param screenY screen height
+	 */
+	public void clear(int screenX, int screenY) {
+		nCellX = Math.max((screenX + CELL - 1) / CELL, 1);
+		nCellY = Math.max((screenY + CELL - 1) / CELL, 1);
+		if (depth == null || depth.length < nCellX * nCellY)
+			depth = new double[nCellX * nCellY];
+		Arrays.fill(depth, 0, nCellX * nCellY, Double.MAX_VALUE);
+		nPolygon = 0;
+	}
+
+	/**
+	 * @return number of polygons added since clear()
+	 */
+	public int getNPolygon() {
+		return nPolygon;
+	}
+
+	/**
+	 * @brief Marks the cells the convex screen polygon covers entirely
+	 * @param x screen coordinates of the points
+	 * @param y
+	 * @param index index in x and y of each of the n polygon points
+	 * @param n
+	 * @param z farthest depth of the polygon points
+	 */
+	public void addPolygon(int x[], int y[], int index[], int n, double z) {
+		int i, row, col, rowFrom, rowTo, colFrom, colTo, yMin, yMax;
+		double left, right;
+		if (n < 3 || !convex(x, y, index, n))
+			return;
+		yMin = yMax = y[index[0]];
+		for (i = 1; i < n; i++) {
+			yMin = Math.min(yMin, y[index[i]]);
+			yMax = Math.max(yMax, y[index[i]]);
+		}
+		rowFrom = Math.max((int) Math.ceil((double) (yMin + MARGIN) / CELL), 0);
+		rowTo = Math.min((int) Math.floor((double) (yMax - MARGIN) / CELL), nCellY);
+		for (row = rowFrom; row < rowTo; row++) {
+			// the cell row is inside where both its lines are
+			span(x, y, index, n, row * CELL - MARGIN, span);
+			left = span[0];
+			right = span[1];
+			span(x, y, index, n, (row + 1) * CELL + MARGIN, span);
+			left = Math.max(left, span[0]);
+			right = Math.min(right, span[1]);
+			if (right - left < CELL)
+				continue;
+			colFrom = Math.max((int) Math.ceil((left + MARGIN) / CELL), 0);
+			colTo = Math.min((int) Math.floor((right - MARGIN) / CELL), nCellX);
+			for (col = colFrom; col < colTo; col++) {
+				if (depth[row * nCellX + col] > z)
+					depth[row * nCellX + col] = z;
+			}
+		}
+		nPolygon++;
+	}
+
+	/**
+	 * @brief Tests a screen rectangle against the raster
+	 * @param xMin screen rectangle
+	 * @param yMin
+	 * @param xMax
+	 * @param yMax
+	 * @param z nearest depth of what the rectangle bounds
+	 * @return true if every cell the rectangle overlaps is covered nearer than z
+	 */
+	public boolean hides(double xMin, double yMin, double xMax, double yMax, double z) {
+		int row, col, colFrom, colTo, rowFrom, rowTo;
+		if (nPolygon == 0)
+			return false;
+		colFrom = Math.max((int) Math.floor(xMin / CELL), 0);
+		colTo = Math.min((int) Math.floor(xMax / CELL), nCellX - 1);
+		rowFrom = Math.max((int) Math.floor(yMin / CELL), 0);
+		rowTo = Math.min((int) Math.floor(yMax / CELL), nCellY - 1);
+		if (colFrom > colTo || rowFrom > rowTo)
+			return false;
+		for (row = rowFrom; row <= rowTo; row++) {
+			for (col = colFrom; col <= colTo; col++) {
+				if (depth[row * nCellX + col] >= z)
+					return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @brief span = {left, right} of the polygon on the line y = yLine,
+	 * empty if left > right
+	 */
+	private static void span(int x[], int y[], int index[], int n, int yLine, double span[]) {
+		int i, a, b;
+		double xCross;
+		span[0] = Double.MAX_VALUE;
+		span[1] = -Double.MAX_VALUE;
+		for (i = 0; i < n; i++) {
+			a = index[i];
+			b = index[i + 1 < n ? i + 1 : 0];
+			if ((y[a] > yLine && y[b] > yLine) || (y[a] < yLine && y[b] < yLine))
+				continue;
+			if (y[a] == y[b]) {
+				span[0] = Math.min(span[0], Math.min(x[a], x[b]));
+				span[1] = Math.max(span[1], Math.max(x[a], x[b]));
+				continue;
+			}
+			xCross = x[a] + (double) (yLine - y[a]) * (x[b] - x[a]) / (y[b] - y[a]);
+			span[0] = Math.min(span[0], xCross);
+			span[1] = Math.max(span[1], xCross);
+		}
+	}
+
+	/**
+	 * @return true if the polygon turns one way, going up and down once
+	 */
+	private static boolean convex(int x[], int y[], int index[], int n) {
+		int i, a, b, c, turn = 0, dy, dyPrev = 0, nDy = 0;
+		long cross;
+		for (i = 0; i < n; i++) {
+			a = index[i];
+			b = index[(i + 1) % n];
+			c = index[(i + 2) % n];
+			cross = (long) (x[b] - x[a]) * (y[c] - y[b]) - (long) (y[b] - y[a]) * (x[c] - x[b]);
+			if (cross != 0) {
+				if (turn != 0 && (cross > 0) != (turn > 0))
+					return false;
+				turn = cross > 0 ? 1 : -1;
+			}
+			dy = Integer.signum(y[b] - y[a]);
+			if (dy != 0) {
+				if (dyPrev != 0 && dy != dyPrev)
+					nDy++;
+				dyPrev = dy;
+			}
+		}
+		// the first direction compared to the last one
+		for (i = 0; i < n; i++) {
+			dy = Integer.signum(y[index[(i + 1) % n]] - y[index[i]]);
+			if (dy != 0) {
+				if (dy != dyPrev)
+					nDy++;
+				break;
+			}
+		}
+		return turn != 0 && nDy <= 2;
+	}
+
+}
@@ -0,0 +1,213 @@
+/* Copyright (c) 2010, Luc Yriarte
+ * All rights reserved.
+ * 
+ * @file PolygonClipper.java
+ * @author Luc Yriarte
+ * 
+ * License: BSD <http://www.opensource.org/licenses/bsd-license.php>
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted 
+ * provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright notice, this 
+ * list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright notice, this 
+ * list of conditions and the following disclaimer in the documentation and/or other materials 
+ * provided with the distribution.
+ *     * The name of Luc Yriarte may not be used to endorse or promote products derived 
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR 
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND 
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. 
+ * IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY 
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ * 
+ */
+package org.yriarte.mini3D;
+
+import org.yriarte.graphics.LineClipper;
+
+/**
+ * @brief Clips eye coordinates polygons and lines to the near plane z = near,
+ * projects them as Mesh does, then clips them to the screen rectangle.
+ * 
+ * Polygons are clipped with the Sutherland-Hodgman algorithm, one plane or 
+ * screen side at a time, 1/z being interpolated linearly on screen. 
+ * Lines are clipped with the Liang-Barsky algorithm. 
+ * Scratch buffers are reused: a clipper must not be shared between threads.
+ */
+public class PolygonClipper {
+
+	/** ping-pong buffers: eye coordinates, then screen coordinates and 1/z */
+	private double ax[], ay[], az[], bx[], by[], bz[];
+	/** last clipped polygon */
+	private int xP[], yP[];
+	private float izP[];
+	private LineClipper lineClipper = new LineClipper();
+
+	public PolygonClipper() {
+		super();
+		ensureCapacity(16);
+	}
+
+	private void ensureCapacity(int n) {
+		if (ax != null && ax.length >= n)
+			return;
+		ax = new double[n]; ay = new double[n]; az = new double[n];
+		bx = new double[n]; by = new double[n]; bz = new double[n];
+		xP = new int[n]; yP = new int[n];
+		izP = new float[n];
+	}
+
+	/**
+	 * @brief Clips the eye coordinates polygon, see getX(), getY() and getIZ()
+	 * @param x eye coordinates of the points
+	 * @param y
+	 * @param z
+	 * @param index index in x, y and z of each of the n polygon points
+	 * @param n
+	 * @param near z of the near plane, > 0
+	 * @param focal
+	 * @param screenX screen width
+	 * @param screenY screen height
+	 * @return number of points of the clipped polygon, 0 if nothing is left
+	 */
+	public int clipPolygon(double x[], double y[], double z[], int index[], int n, double near, 
+			int focal, int screenX, int screenY) {
+		int i, j, a, b, m = 0;
+		double t, x0 = screenX / 2, y0 = screenY / 2;
+		// each plane adds at most one point
+		ensureCapacity(n + 5);
+		// near plane, in eye coordinates
+		for (i = 0, j = n - 1; i < n; j = i++) {
+			a = index[i];
+			b = index[j];
+			if ((z[a] >= near) != (z[b] >= near)) {
+				t = (near - z[b]) / (z[a] - z[b]);
+				ax[m] = x[b] + t * (x[a] - x[b]);
+				ay[m] = y[b] + t * (y[a] - y[b]);
+				az[m++] = near;
+			}
+			if (z[a] >= near) {
+				ax[m] = x[a];
+				ay[m] = y[a];
+				az[m++] = z[a];
+			}
+		}
+		// projection, keeping 1/z
+		for (i = 0; i < m; i++) {
+			ax[i] = x0 + ax[i] * focal / az[i];
+			ay[i] = y0 - ay[i] * focal / az[i];
+			az[i] = 1 / az[i];
+		}
+		// screen sides
+		m = clipSide(ax, ay, az, m, bx, by, bz, 0, false);
+		m = clipSide(bx, by, bz, m, ax, ay, az, screenX, true);
+		m = clipSide(ay, ax, az, m, by, bx, bz, 0, false);
+		m = clipSide(by, bx, bz, m, ay, ax, az, screenY, true);
+		if (m < 3)
+			return 0;
+		for (i = 0; i < m; i++) {
+			xP[i] = (int) ax[i];
+			yP[i] = (int) ay[i];
+			izP[i] = (float) az[i];
+		}
+		return m;
+	}
+
+	/**
+	 * @brief Sutherland-Hodgman step: keeps u >= bound, or u <= bound if upper,
+	 * v and w being interpolated
+	 */
+	private static int clipSide(double u[], double v[], double w[], int n, 
+			double uOut[], double vOut[], double wOut[], double bound, boolean upper) {
+		int i, j, m = 0;
+		double t;
+		boolean in, prevIn;
+		if (n == 0)
+			return 0;
+		prevIn = upper ? u[n - 1] <= bound : u[n - 1] >= bound;
+		for (i = 0, j = n - 1; i < n; j = i++) {
+			in = upper ? u[i] <= bound : u[i] >= bound;
+			if (in != prevIn) {
+				t = (bound - u[j]) / (u[i] - u[j]);
+				uOut[m] = bound;
+				vOut[m] = v[j] + t * (v[i] - v[j]);
+				wOut[m++] = w[j] + t * (w[i] - w[j]);
+			}
+			if (in) {
+				uOut[m] = u[i];
+				vOut[m] = v[i];
+				wOut[m++] = w[i];
+			}
+			prevIn = in;
+		}
+		return m;
+	}
+
+	/**
+	 * @brief Clips the eye coordinates segment to the near plane, 
+	 * projects it then clips it to the screen rectangle.
+	 * @param line x1 y1 x2 y2 screen coordinates of the clipped segment
+	 * @return false if nothing is left of the segment
+	 */
+	public boolean clipLine(double x1, double y1, double z1, double x2, double y2, double z2, 
+			double near, int focal, int screenX, int screenY, int line[]) {
+		double t, x0 = screenX / 2, y0 = screenY / 2;
+		double sx1, sy1, sx2, sy2, dx, dy, t0, t1;
+		if (z1 < near && z2 < near)
+			return false;
+		if (z1 < near) {
+			t = (near - z1) / (z2 - z1);
+			x1 += t * (x2 - x1);
+			y1 += t * (y2 - y1);
+			z1 = near;
+		} else if (z2 < near) {
+			t = (near - z2) / (z1 - z2);
+			x2 += t * (x1 - x2);
+			y2 += t * (y1 - y2);
+			z2 = near;
+		}
+		sx1 = x0 + x1 * focal / z1;
+		sy1 = y0 - y1 * focal / z1;
+		sx2 = x0 + x2 * focal / z2;
+		sy2 = y0 - y2 * focal / z2;
+		dx = sx2 - sx1;
+		dy = sy2 - sy1;
+		if (!lineClipper.clip(sx1, sy1, dx, dy, 0, 0, screenX, screenY))
+			return false;
+		t0 = lineClipper.getT0();
+		t1 = lineClipper.getT1();
+		line[0] = (int) (sx1 + t0 * dx);
+		line[1] = (int) (sy1 + t0 * dy);
+		line[2] = (int) (sx1 + t1 * dx);
+		line[3] = (int) (sy1 + t1 * dy);
+		return true;
+	}
+
+	/**
+	 * @return screen x of the last clipped polygon
+	 */
+	public int[] getX() {
+		return xP;
+	}
+
+	/**
+	 * @return screen y of the last clipped polygon
+	 */
+	public int[] getY() {
+		return yP;
+	}
+
+	/**
+	 * @return 1/z of the last clipped polygon points
+	 */
+	public float[] getIZ() {
+		return izP;
+	}
+
+}
@@ -0,0 +1,107 @@
+/* Copyright (c) 2010, Luc Yriarte
+ * All rights reserved.
+ * 
+ * @file PrimitiveTemplate.java
+ * @author Luc Yriarte
+ * 
+ * License: BSD <http://www.opensource.org/licenses/bsd-license.php>
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted 
+ * provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright notice, this 
+ * list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright notice, this 
+ * list of conditions and the following disclaimer in the documentation and/or other materials 
+ * provided with the distribution.
+ *     * The name of Luc Yriarte may not be used to endorse or promote products derived 
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR 
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND 
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. 
+ * IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY 
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ * 
+ */
+
+package org.yriarte.mini3D;
+
+import java.util.HashMap;
+
+/**
+ * @brief Unit sized tessellation of a primitive: vertices, edges and facet 
+ * edge indexes, shared by every instance built with the same parameters.
+ * 
+ * Instances reference the template mesh through a mesh with a local scale,
+ * and the facet edge indexes arrays. Templates are never changed once cached.
+ */
+public class PrimitiveTemplate {
+
+	/** templates by tessellation parameters */
+	private static HashMap<String, PrimitiveTemplate> templates = new HashMap<String, PrimitiveTemplate>();
+
+	private Mesh mesh;
+	private int facetEdge[][];
+
+	/**
+	 * @param mesh unit sized mesh, converted to coordinate arrays
+	 * @param facetEdge edge indexes of each facet
+	 */
+	public PrimitiveTemplate(Mesh mesh, int facetEdge[][]) {
+		super();
+		if (mesh.getStorage() == Mesh.STORAGE_VECTOR)
+			mesh.setStorage(Mesh.STORAGE_DOUBLE);
+		this.mesh = mesh;
+		this.facetEdge = facetEdge;
+	}
+
+	/**
+	 * @param key tessellation parameters
+	 * @return the cached template, null if none
+	 */
+	public static synchronized PrimitiveTemplate get(String key) {
+		return templates.get(key);
+	}
+
+	/**
+	 * @brief caches template unless another one was cached for key meanwhile
+	 * @return the cached template
+	 */
+	public static synchronized PrimitiveTemplate put(String key, PrimitiveTemplate template) {
+		PrimitiveTemplate cached = templates.get(key);
+		if (cached != null)
+			return cached;
+		templates.put(key, template);
+		return template;
+	}
+
+	/**
+	 * @brief forgets the cached templates, instances keep theirs
+	 */
+	public static synchronized void clear() {
+		templates.clear();
+	}
+
+	/**
+	 * @return a mesh sharing the template vertices, scaled on the 3 axes
+	 */
+	public Mesh newMesh(double scaleX, double scaleY, double scaleZ) {
+		return new Mesh(mesh, new Affine3D().toScale(scaleX, scaleY, scaleZ));
+	}
+
+	public int getNFacet() {
+		return facetEdge.length;
+	}
+
+	/**
+	 * @return edge indexes of facet i, shared: not to be changed
+	 */
+	public int[] getFacetEdge(int i) {
+		return facetEdge[i];
+	}
+
+}
@@ -0,0 +1,86 @@
+/* Copyright (c) 2010, Luc Yriarte
+ * All rights reserved.
+ * 
+ * @file RadixDepthSorter.java
+ * @author Luc Yriarte
+ * 
+ * License: BSD <http://www.opensource.org/licenses/bsd-license.php>
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted 
+ * provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright notice, this 
+ * list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright notice, this 
+ * list of conditions and the following disclaimer in the documentation and/or other materials 
+ * provided with the distribution.
+ *     * The name of Luc Yriarte may not be used to endorse or promote products derived 
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR 
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND 
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. 
+ * IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY 
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ * 
+ */
+package org.yriarte.mini3D;
+
+import org.yriarte.mini3D.Object3D.PolygonEdgeIndexes;
+
+/**
+ * @brief LSD radix sort on the integer z, one byte per pass. 
+ * Passes where every key has the same byte are skipped, so scenes
+ * with a small z range take 1 or 2 passes.
+ * Scratch buffers are kept between frames.
+ */
+public class RadixDepthSorter implements DepthSorter {
+
+	private int key[] = null, keyTmp[] = null;
+	private PolygonEdgeIndexes facetTmp[] = null;
+	private int count[] = new int[256];
+
+	public void sort(PolygonEdgeIndexes facet[], int n) {
+		if (n < 2)
+			return;
+		int i, b, shift, sum, tmp, kSrc[], kDst[];
+		PolygonEdgeIndexes fSrc[], fDst[], fTmp[];
+		if (key == null || key.length < n) {
+			key = new int[n];
+			keyTmp = new int[n];
+			facetTmp = new PolygonEdgeIndexes[n];
+		}
+		// decreasing signed z is increasing unsigned (z ^ 0x7FFFFFFF)
+		for (i = 0; i < n; i++)
+			key[i] = facet[i].getZ() ^ 0x7FFFFFFF;
+		kSrc = key; kDst = keyTmp;
+		fSrc = facet; fDst = facetTmp;
+		for (shift = 0; shift < 32; shift += 8) {
+			for (b = 0; b < 256; b++)
+				count[b] = 0;
+			for (i = 0; i < n; i++)
+				count[(kSrc[i] >>> shift) & 0xFF]++;
+			if (count[(kSrc[0] >>> shift) & 0xFF] == n)
+				continue;
+			sum = 0;
+			for (b = 0; b < 256; b++) {
+				tmp = count[b];
+				count[b] = sum;
+				sum += tmp;
+			}
+			for (i = 0; i < n; i++) {
+				b = count[(kSrc[i] >>> shift) & 0xFF]++;
+				kDst[b] = kSrc[i];
+				fDst[b] = fSrc[i];
+			}
+			kDst = kSrc; kSrc = (kSrc == key) ? keyTmp : key;
+			fTmp = fDst; fDst = fSrc; fSrc = fTmp;
+		}
+		if (fSrc != facet)
+			System.arraycopy(fSrc, 0, facet, 0, n);
+	}
+
+}
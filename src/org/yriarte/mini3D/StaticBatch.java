@@ -0,0 +1,228 @@
+/* Copyright (c) 2010, Luc Yriarte
+ * All rights reserved.
+ * 
+ * @file StaticBatch.java
+ * @author Luc Yriarte
+ * 
+ * License: BSD <http://www.opensource.org/licenses/bsd-license.php>
+ * 
+ * Redistribution and use in source and binary forms, with or without modification, are permitted 
+ * provided that the following conditions are met:
+ * 
+ *     * Redistributions of source code must retain the above copyright notice, this 
+ * list of conditions and the following disclaimer.
+ *     * Redistributions in binary form must reproduce the above copyright notice, this 
+ * list of conditions and the following disclaimer in the documentation and/or other materials 
+ * provided with the distribution.
+ *     * The name of Luc Yriarte may not be used to endorse or promote products derived 
+ * from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR 
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND 
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. 
+ * IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE 
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY 
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) 
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ * 
+ */
+
+package org.yriarte.mini3D;
+
+/**
+ * @brief Meshes of static subtrees baked into a single object.
+ * 
+ * The vertices are transformed into the coordinates of the object the 
+ * subtrees were attached to, edges and facets are concatenated. Facets keep
+ * the shading and the orientation they had in their source object, lines 
+ * are drawn in the color of their source object.
+ */
+public class StaticBatch extends BatchObject3D {
+
+	/** transformation of each source to the batch, until built */
+	private Affine3D sourceTransform[];
+
+	private StaticBatch(int n) {
+		super();
+		source = new Object3D[n];
+		sourceTransform = new Affine3D[n];
+	}
+
+	/**
+	 * @brief Replaces the children of each object that are static subtrees 
+	 * by a single batch: no animation transforms them and they have no lines 
+	 * only meshes. Objects with levels of detail are kept apart unless obj's 
+	 * level of detail is off, their current tessellation being baked then.
+	 * @param obj toplevel object, reset afterwards
+	 * @param animation transforms the animated objects, null if none
+	 * @return obj
+	 */
+	public static Object3D batch(Object3D obj, Animation animation) {
+		batchChildren(obj, animation, obj.isLevelOfDetail());
+		obj.reset();
+		return obj;
+	}
+
+	private static void batchChildren(Object3D obj, Animation animation, boolean lod) {
+		int i, nMesh = 0, nKept = 0;
+		boolean isStatic[] = new boolean[obj.nChild];
+		Object3D kept[];
+		StaticBatch b;
+		for (i = 0; i < obj.nChild; i++) {
+			isStatic[i] = isStatic(obj.child[i], animation, lod);
+			if (isStatic[i])
+				nMesh += countMeshes(obj.child[i]);
+			else
+				batchChildren(obj.child[i], animation, lod);
+		}
+		// nothing to gain from a single mesh
+		if (nMesh < 2)
+			return;
+		b = new StaticBatch(nMesh);
+		kept = new Object3D[obj.nChild];
+		for (i = 0; i < obj.nChild; i++) {
+			if (isStatic[i])
+				b.add(obj.child[i], new Affine3D(obj.child[i].transformation));
+			else
+				kept[nKept++] = obj.child[i];
+		}
+		b.build();
+		obj.child = kept;
+		obj.nChild = nKept;
+		obj.addChild(b);
+	}
+
+	/**
+	 * @param lod levels of detail are selected
+	 * @return true if obj's subtree can be baked
+	 */
+	private static boolean isStatic(Object3D obj, Animation animation, boolean lod) {
+		int i;
+		if (animation != null && animation.animates(obj))
+			return false;
+		if ((lod && obj.getNLevel() > 1) || obj instanceof StaticBatch)
+			return false;
+		// lines only meshes are drawn as wireframes
+		if (obj.mesh != null && obj.mesh.getNEdge() > 0 && obj.nFacet == 0)
+			return false;
+		for (i = 0; i < obj.nChild; i++) {
+			if (!isStatic(obj.child[i], animation, lod))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return objects with a mesh in obj's subtree
+	 */
+	private static int countMeshes(Object3D obj) {
+		int i, n = obj.mesh != null && obj.mesh.getNEdge() > 0 ? 1 : 0;
+		for (i = 0; i < obj.nChild; i++)
+			n += countMeshes(obj.child[i]);
+		return n;
+	}
+
+	/**
+	 * @brief adds the meshes of obj's subtree to the sources
+	 * @param trans transformation from obj to the batch coordinates
+	 */
+	private void add(Object3D obj, Affine3D trans) {
+		int i;
+		if (obj.mesh != null && obj.mesh.getNEdge() > 0) {
+			source[nSource] = obj;
+			sourceTransform[nSource++] = trans;
+		}
+		for (i = 0; i < obj.nChild; i++)
+			add(obj.child[i], Affine3D.mulInto(trans, obj.child[i].transformation, new Affine3D()));
+	}
+
+	/**
+	 * @brief bakes the source meshes and facets into this object's, 
+	 * then releases them: sources only keep their shading.
+	 */
+	private void build() {
+		int i, j, k, nV = 0, nE = 0, nF = 0, v0 = 0, e0 = 0, f0 = 0, windingSign, fe[], m[][];
+		double x[], y[], z[], vx, vy, vz;
+		Mesh sm;
+		Affine3D t;
+		PolygonEdgeIndexes sf;
+		for (i = 0; i < nSource; i++) {
+			nV += source[i].mesh.getNVertex();
+			nE += source[i].mesh.getNEdge();
+			nF += source[i].nFacet;
+		}
+		x = new double[nV];
+		y = new double[nV];
+		z = new double[nV];
+		m = new int[nE][2];
+		facet = new PolygonEdgeIndexes[nF];
+		sourceEdge = new int[nSource + 1];
+		for (i = 0; i < nSource; i++) {
+			sm = source[i].mesh;
+			t = sourceTransform[i];
+			for (j = 0; j < sm.getNVertex(); j++) {
+				vx = sm.getX(j);
+				vy = sm.getY(j);
+				vz = sm.getZ(j);
+				x[v0 + j] = t.transformX(vx, vy, vz);
+				y[v0 + j] = t.transformY(vx, vy, vz);
+				z[v0 + j] = t.transformZ(vx, vy, vz);
+			}
+			for (j = 0; j < sm.getNEdge(); j++) {
+				m[e0 + j][0] = sm.getEdge()[j][0] + v0;
+				m[e0 + j][1] = sm.getEdge()[j][1] + v0;
+			}
+			// closed meshes keep the windings against their own center
+			windingSign = 0;
+			if (source[i].backFaceCulling) {
+				source[i].updateWindings();
+				windingSign = t.det() < 0 ? -1 : 1;
+				backFaceCulling = true;
+			}
+			for (j = 0; j < source[i].nFacet; j++) {
+				sf = source[i].facet[j];
+				fe = new int[sf.edge.length];
+				for (k = 0; k < fe.length; k++)
+					fe[k] = sf.edge[k] + e0;
+				facet[f0 + j] = new PolygonEdgeIndexes(this, fe);
+				facet[f0 + j].batchedFrom(sf, j, windingSign);
+			}
+			sourceEdge[i] = e0;
+			v0 += sm.getNVertex();
+			e0 += sm.getNEdge();
+			f0 += source[i].nFacet;
+			source[i].mesh = null;
+			source[i].facet = null;
+			sourceTransform[i] = null;
+		}
+		sourceEdge[nSource] = e0;
+		sourceTransform = null;
+		nFacet = nF;
+		mesh = new Mesh(nV, nE, x, y, z, m);
+		if (Mesh.STORAGE_DEFAULT == Mesh.STORAGE_FLOAT)
+			mesh.setStorage(Mesh.STORAGE_FLOAT);
+	}
+
+	/**
+	 * @return number of objects baked in this batch
+	 */
+	public int getNSource() {
+		return nSource;
+	}
+
+	/**
+	 * @return objects baked in this batch, see getNSource()
+	 */
+	Object3D[] getSource() {
+		return source;
+	}
+
+	/**
+	 * @return first edge of each source in the batch mesh, then the edge count
+	 */
+	int[] getSourceEdge() {
+		return sourceEdge;
+	}
+
+}
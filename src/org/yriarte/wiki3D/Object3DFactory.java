@@ -40,12 +40,15 @@ import org.yriarte.mini3D.Object3D;
 import org.yriarte.mini3D.PolyCone;
 import org.yriarte.mini3D.PolyCylinder;
 import org.yriarte.mini3D.PolySphere;
+import org.yriarte.mini3D.StaticBatch;
 import org.yriarte.mini3D.TransformList;
 
 public class Object3DFactory {
 
 	static Animation parsedAnimation;
 	static int currStep, currLoop, DEFAULT_MS = 83; // 12 fps;
+	/** Bake the subtrees no animation transforms into static batches */
+	static public boolean STATIC_BATCHING = true;
 
 	static public Animation getAnimation() {
 		return parsedAnimation;
@@ -56,10 +59,21 @@ public class Object3DFactory {
 	}
 	
 	static public Object3D NewObject3D(String str) {
+		return NewObject3D(str, true);
+	}
+
+	/**
+	 * @param levelOfDetail set on the object before static batching, 
+	 * round primitives are only batched without levels of detail
+	 */
+	static public Object3D NewObject3D(String str, boolean levelOfDetail) {
 		parsedAnimation = null;
 		StringTokenizer st = new StringTokenizer(str, " \t\n(),=");
 		Object3D obj = Object3DFactory.parseTokens(st);
 		obj.reset();
+		obj.setLevelOfDetail(levelOfDetail);
+		if (STATIC_BATCHING)
+			StaticBatch.batch(obj, parsedAnimation);
 		return obj;
 	}
 
@@ -58,6 +58,7 @@ public class Wiki3DApplet extends Applet {
 		Animation anime = null;
 		int focal=0;
 		double zoom=0;
+		boolean lod;
 		
 		str = getParameter("Z");
 		if (str != null)
@@ -67,12 +68,46 @@ public class Wiki3DApplet extends Applet {
 		if (str != null)
 			Object3D.N_DEFAULT = Integer.valueOf(str).intValue();
 		
+		str = getParameter("Raster");
+		if (str != null)
+			panel.setSoftwareRaster(Boolean.valueOf(str).booleanValue());
+		
+		str = getParameter("ParallelRaster");
+		if (str != null)
+			panel.setParallelRaster(Boolean.valueOf(str).booleanValue());
+		
+		str = getParameter("ZBuffer");
+		if (str != null && Boolean.valueOf(str).booleanValue())
+			panel.setFacetMode(Object3D.DRAW_ZBUFFER);
+		
 		str = getParameter("Focal");
 		if (str != null)
 			focal = Integer.valueOf(str).intValue();
 		
+		// static batching bakes the round primitives without levels of detail
+		str = getParameter("LevelOfDetail");
+		lod = str == null || Boolean.valueOf(str).booleanValue();
+
 		str = getParameter("Model");
-		obj = (str == null) ? new PolySphere(100) : Object3DFactory.NewObject3D(str);
+		obj = (str == null) ? new PolySphere(100) : Object3DFactory.NewObject3D(str, lod);
+		obj.setLevelOfDetail(lod);
+		
+		str = getParameter("ParallelUpdate");
+		if (str != null)
+			obj.setParallelUpdate(Boolean.valueOf(str).booleanValue());
+
+		str = getParameter("FacetBudget");
+		if (str != null)
+			obj.setFacetBudget(Integer.valueOf(str).intValue());
+
+		str = getParameter("OcclusionCulling");
+		if (str != null)
+			obj.setOcclusionCulling(Boolean.valueOf(str).booleanValue());
+
+		// the tree orders the facets of static scenes only
+		str = getParameter("BspOrdering");
+		if (str != null && Object3DFactory.getAnimation() == null)
+			obj.setBspOrdering(Boolean.valueOf(str).booleanValue());
 
 		// ---- ---- initialize 3D panel
 		panel.setBounds(this.getBounds());